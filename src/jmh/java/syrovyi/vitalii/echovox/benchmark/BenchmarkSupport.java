@@ -0,0 +1,126 @@
+package syrovyi.vitalii.echovox.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import syrovyi.vitalii.echovox.EchovoxApplication;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Shared fixtures: boots the application without a web server against a given upload directory and
+ * generates synthetic documents.
+ */
+final class BenchmarkSupport {
+    static final LocalDate BASE_DATE = LocalDate.of(2024, 1, 1);
+    static final int CUSTOMERS = 1000;
+    static final int TYPES = 10;
+
+    private static final Path DATA_ROOT = Paths.get("target", "jmh-data");
+
+    private BenchmarkSupport() {
+    }
+
+    static ConfigurableApplicationContext start(Path uploadDir, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--file.upload-dir=" + uploadDir.toAbsolutePath(),
+                "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+
+        return new SpringApplicationBuilder(EchovoxApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    static Path tempDir(String prefix) {
+        try {
+            Files.createDirectories(DATA_ROOT);
+            return Files.createTempDirectory(DATA_ROOT, prefix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a directory holding {@code files} stored documents, generating it on first use. The data set
+     * is kept under {@code target/jmh-data} so large directories are only written once.
+     */
+    static Path populatedDir(int files, int payloadBytes) {
+        Path dir = DATA_ROOT.resolve("store-" + files + "-" + payloadBytes);
+        Path marker = dir.resolve(".complete");
+        if (Files.exists(marker)) {
+            return dir;
+        }
+        try {
+            deleteRecursively(dir);
+            Files.createDirectories(dir);
+            for (int i = 0; i < files; i++) {
+                String name = customer(i % CUSTOMERS) + "_" + type((i / CUSTOMERS) % TYPES) + "_"
+                        + BASE_DATE.plusDays(i / (CUSTOMERS * TYPES)) + ".json";
+                Files.write(dir.resolve(name), jsonDocument(i, payloadBytes));
+            }
+            Files.createFile(marker);
+            return dir;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String customer(int i) {
+        return String.format("cust%04d", i);
+    }
+
+    static String type(int i) {
+        return "type" + i;
+    }
+
+    static byte[] xmlDocument(int payloadBytes) {
+        return ("<data><id>42</id><name>Benchmark Customer</name><content>" + payload(payloadBytes)
+                + "</content></data>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] jsonDocument(int id, int payloadBytes) {
+        return ("{\n  \"customerId\" : \"" + id + "\",\n  \"customerName\" : \"Customer " + id
+                + "\",\n  \"payload\" : \"" + payload(payloadBytes) + "\"\n}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String payload(int bytes) {
+        String unit = "lorem ipsum dolor sit amet ";
+        StringBuilder sb = new StringBuilder(bytes);
+        while (sb.length() < bytes) {
+            sb.append(unit);
+        }
+        sb.setLength(bytes);
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package syrovyi.vitalii.echovox.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Storage codecs compared on uncached read latency. The disk footprint of the stored documents is
+ * logged during setup.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CodecBenchmark {
+    private static final int DOCUMENTS = 1000;
+
+    @Param({"json", "smile", "cbor", "binary"})
+    public String codec;
+
+    @Param({"256", "65536"})
+    public int payloadBytes;
+
+    private ConfigurableApplicationContext context;
+    private Path uploadDir;
+    private FileProcessingService fileProcessingService;
+    private String[] filenames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        uploadDir = BenchmarkSupport.tempDir("codec");
+        context = BenchmarkSupport.start(uploadDir, "file.storage.codec=" + codec, "file.cache.enabled=false");
+        fileProcessingService = context.getBean(FileProcessingService.class);
+
+        byte[] xml = BenchmarkSupport.xmlDocument(payloadBytes);
+        filenames = new String[DOCUMENTS];
+        for (int i = 0; i < DOCUMENTS; i++) {
+            filenames[i] = BenchmarkSupport.customer(i) + "_doc_2024-01-01.xml";
+            fileProcessingService.storeFile(filenames[i], new ByteArrayInputStream(xml), true);
+        }
+        long footprint = footprint();
+        log.info("{}, {} byte payload: {} bytes on disk, {} per document",
+                codec, payloadBytes, footprint, footprint / DOCUMENTS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        BenchmarkSupport.deleteRecursively(uploadDir);
+    }
+
+    @Benchmark
+    public CustomerJsonDTO read() {
+        next = (next + 1) % DOCUMENTS;
+
+        return fileProcessingService.getFileContent(filenames[next]);
+    }
+
+    private long footprint() {
+        try (Stream<Path> files = Files.walk(uploadDir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).sum();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
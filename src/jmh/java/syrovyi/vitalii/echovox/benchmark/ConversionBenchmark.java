@@ -0,0 +1,68 @@
+package syrovyi.vitalii.echovox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+import syrovyi.vitalii.echovox.file.service.XmlConversionService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XML to JSON conversion on upload: the conversion alone, and the full save path including the disk write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConversionBenchmark {
+    @Param({"1024", "4194304"})
+    public int payloadBytes;
+
+    private ConfigurableApplicationContext context;
+    private Path uploadDir;
+    private XmlConversionService converter;
+    private FileProcessingService fileProcessingService;
+    private byte[] xml;
+
+    @Setup
+    public void setUp() {
+        uploadDir = BenchmarkSupport.tempDir("conversion");
+        context = BenchmarkSupport.start(uploadDir);
+        converter = context.getBean(XmlConversionService.class);
+        fileProcessingService = context.getBean(FileProcessingService.class);
+        xml = BenchmarkSupport.xmlDocument(payloadBytes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        BenchmarkSupport.deleteRecursively(uploadDir);
+    }
+
+    @Benchmark
+    public void convert() throws IOException {
+        converter.convert(new ByteArrayInputStream(xml), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void save() {
+        fileProcessingService.storeFile("bench_doc_2024-01-01.xml", new ByteArrayInputStream(xml), true);
+    }
+}
@@ -0,0 +1,86 @@
+package syrovyi.vitalii.echovox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares request execution on a Tomcat-sized platform pool (200 threads) against one virtual thread
+ * per request. Each invocation issues a burst of uncached document reads and waits for all of them;
+ * the disk limiter ({@code file.io.max-concurrency}) stays in front of the filesystem in both modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class ExecutionModeBenchmark {
+    private static final int FILES = 10_000;
+    private static final int BURST = 1_000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private FileProcessingService fileProcessingService;
+    private ExecutorService requestExecutor;
+    private String[] filenames;
+
+    @Setup
+    public void setUp() {
+        Path store = BenchmarkSupport.populatedDir(FILES, 4096);
+        context = BenchmarkSupport.start(store, "file.cache.enabled=false");
+        fileProcessingService = context.getBean(FileProcessingService.class);
+        requestExecutor = "virtual".equals(mode)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+
+        filenames = new String[BURST];
+        for (int i = 0; i < BURST; i++) {
+            int n = (i * 7919) % FILES;
+            filenames[i] = BenchmarkSupport.customer(n % BenchmarkSupport.CUSTOMERS) + "_"
+                    + BenchmarkSupport.type((n / BenchmarkSupport.CUSTOMERS) % BenchmarkSupport.TYPES) + "_"
+                    + BenchmarkSupport.BASE_DATE + ".xml";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestExecutor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void burstOfReads() throws Exception {
+        List<Future<?>> requests = new ArrayList<>(BURST);
+        for (String filename : filenames) {
+            requests.add(requestExecutor.submit(() -> fileProcessingService.getFileContent(filename)));
+        }
+        for (Future<?> request : requests) {
+            request.get();
+        }
+    }
+}
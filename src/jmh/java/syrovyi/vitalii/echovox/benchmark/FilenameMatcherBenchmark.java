@@ -0,0 +1,118 @@
+package syrovyi.vitalii.echovox.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import syrovyi.vitalii.echovox.file.codec.impl.JsonStorageCodec;
+import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
+import syrovyi.vitalii.echovox.file.service.impl.FilenameHandlerServiceImpl;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-candidate cost of the filename matchers used while filtering search results. The {@code regex*}
+ * benchmarks reproduce the former {@link Pattern}-based matchers as a baseline for the hand-written
+ * parser; run with {@code -prof gc} to compare allocation per name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FilenameMatcherBenchmark {
+    private static final int NAMES = 1024;
+    private static final Pattern FILENAME_PATTERN = Pattern.compile(
+            "^(?<customer>[a-zA-Z0-9]+)_(?<type>[a-zA-Z0-9]+)_(?<date>\\d{4}-\\d{2}-\\d{2})\\.xml$");
+
+    private final FilenameHandlerService filenameHandler = new FilenameHandlerServiceImpl(new JsonStorageCodec(new ObjectMapper()));
+    private final String[] names = new String[NAMES];
+    private final LocalDate date = BenchmarkSupport.BASE_DATE;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < NAMES; i++) {
+            names[i] = BenchmarkSupport.customer(i % 50) + "_" + BenchmarkSupport.type(i % 7) + "_"
+                    + BenchmarkSupport.BASE_DATE.plusDays(i % 3) + ".xml";
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void validate() {
+        for (String name : names) {
+            filenameHandler.validate(name);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void matchesCustomer(Blackhole bh) {
+        for (String name : names) {
+            bh.consume(filenameHandler.matchesCustomer(name, "cust0007"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void matchesType(Blackhole bh) {
+        for (String name : names) {
+            bh.consume(filenameHandler.matchesType(name, "type3"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void matchesDate(Blackhole bh) {
+        for (String name : names) {
+            bh.consume(filenameHandler.matchesDate(name, date));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void parse(Blackhole bh) {
+        for (String name : names) {
+            bh.consume(filenameHandler.parse(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void regexValidate(Blackhole bh) {
+        for (String name : names) {
+            bh.consume(FILENAME_PATTERN.matcher(name).matches());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void regexMatchesCustomer(Blackhole bh) {
+        for (String name : names) {
+            Matcher m = FILENAME_PATTERN.matcher(name);
+            bh.consume(m.matches() && m.group("customer").equals("cust0007"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void regexMatchesDate(Blackhole bh) {
+        for (String name : names) {
+            Matcher m = FILENAME_PATTERN.matcher(name);
+            bh.consume(m.matches() && m.group("date").equals(date.toString()));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package syrovyi.vitalii.echovox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-document reads through {@code getFileContent}, with and without the content cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReadBenchmark {
+    private static final String FILENAME = "bench_doc_2024-01-01.xml";
+
+    @Param({"1024", "1048576"})
+    public int payloadBytes;
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private Path uploadDir;
+    private FileProcessingService fileProcessingService;
+
+    @Setup
+    public void setUp() {
+        uploadDir = BenchmarkSupport.tempDir("read");
+        context = BenchmarkSupport.start(uploadDir, "file.cache.enabled=" + cacheEnabled);
+        fileProcessingService = context.getBean(FileProcessingService.class);
+        fileProcessingService.storeFile(FILENAME, new ByteArrayInputStream(BenchmarkSupport.xmlDocument(payloadBytes)), true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        BenchmarkSupport.deleteRecursively(uploadDir);
+    }
+
+    @Benchmark
+    public CustomerJsonDTO getFileContent() {
+        return fileProcessingService.getFileContent(FILENAME);
+    }
+}
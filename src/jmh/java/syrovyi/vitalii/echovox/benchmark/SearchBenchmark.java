@@ -0,0 +1,107 @@
+package syrovyi.vitalii.echovox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FilePageResponseDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FileResponseDTO;
+import syrovyi.vitalii.echovox.file.model.FileProjection;
+import syrovyi.vitalii.echovox.file.model.FileQuery;
+import syrovyi.vitalii.echovox.file.repository.FileSystemRepository;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Searches over synthetic stores of 10k/100k/1M documents. The data set is generated once under
+ * {@code target/jmh-data}; the content cache is disabled so every match is read from disk.
+ * {@code directoryScan} reproduces the glob-and-regex scan the index replaced, for comparison; the
+ * {@code *Metadata} variants list the same matches without opening them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class SearchBenchmark {
+    private static final int PAYLOAD_BYTES = 256;
+
+    @Param({"10000", "100000", "1000000"})
+    public int files;
+
+    @Param({"true", "false"})
+    public boolean parallelReads;
+
+    private ConfigurableApplicationContext context;
+    private FileProcessingService fileProcessingService;
+    private FileSystemRepository fileSystemRepository;
+    private FilenameHandlerService filenameHandler;
+    private String customer;
+
+    @Setup
+    public void setUp() {
+        Path store = BenchmarkSupport.populatedDir(files, PAYLOAD_BYTES);
+        context = BenchmarkSupport.start(store,
+                "file.cache.enabled=false",
+                "file.search.parallel-reads=" + parallelReads);
+        fileProcessingService = context.getBean(FileProcessingService.class);
+        fileSystemRepository = context.getBean(FileSystemRepository.class);
+        filenameHandler = context.getBean(FilenameHandlerService.class);
+        customer = BenchmarkSupport.customer(42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<FileResponseDTO> byCustomer() {
+        return fileProcessingService.getFilesByCustomer(customer);
+    }
+
+    @Benchmark
+    public List<FileResponseDTO> byCustomerMetadata() {
+        return fileProcessingService.queryFiles(FileQuery.byCustomer(customer), FileProjection.METADATA);
+    }
+
+    @Benchmark
+    public List<FileResponseDTO> byTypeMetadata() {
+        return fileProcessingService.queryFiles(FileQuery.byType(BenchmarkSupport.type(3)), FileProjection.METADATA);
+    }
+
+    @Benchmark
+    public List<FileResponseDTO> byType() {
+        return fileProcessingService.getFilesByType(BenchmarkSupport.type(3));
+    }
+
+    @Benchmark
+    public FilePageResponseDTO byDateFirstPage() {
+        return fileProcessingService.getFilesPage(FileQuery.byDate(BenchmarkSupport.BASE_DATE), null, 100, FileProjection.CONTENT);
+    }
+
+    @Benchmark
+    public long directoryScan() {
+        try (Stream<Path> stream = fileSystemRepository.findFiles(filenameHandler.generateCustomerGlob(customer))) {
+            return stream
+                    .map(path -> filenameHandler.toOriginalFilename(path.getFileName().toString()))
+                    .filter(name -> filenameHandler.matchesCustomer(name, customer))
+                    .count();
+        }
+    }
+}
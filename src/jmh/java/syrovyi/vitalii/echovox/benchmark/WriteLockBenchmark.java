@@ -0,0 +1,96 @@
+package syrovyi.vitalii.echovox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaces from 8 threads with the per-filename write locks on and off. With {@code distinct} keys
+ * every thread writes its own files and throughput should not depend on the locks; with {@code shared}
+ * keys all threads replace the same file, which the locks serialize. Writes run with the default
+ * {@code group} durability, so the fsync a writer waits for while holding its lock is part of the
+ * measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class WriteLockBenchmark {
+    private static final int PAYLOAD_BYTES = 1024;
+    private static final int FILES_PER_THREAD = 64;
+
+    @Param({"false", "true"})
+    public boolean locks;
+
+    @Param({"distinct", "shared"})
+    public String keys;
+
+    private ConfigurableApplicationContext context;
+    private Path uploadDir;
+    private FileProcessingService fileProcessingService;
+    private byte[] xml;
+
+    @Setup
+    public void setUp() {
+        uploadDir = BenchmarkSupport.tempDir("write-lock");
+        context = BenchmarkSupport.start(uploadDir,
+                "file.locks.enabled=" + locks,
+                "file.storage.durability=group");
+        fileProcessingService = context.getBean(FileProcessingService.class);
+        xml = BenchmarkSupport.xmlDocument(PAYLOAD_BYTES);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        BenchmarkSupport.deleteRecursively(uploadDir);
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private String[] filenames;
+        private int next;
+
+        @Setup
+        public void setUp(WriteLockBenchmark benchmark, ThreadParams thread) {
+            filenames = new String[FILES_PER_THREAD];
+            for (int i = 0; i < FILES_PER_THREAD; i++) {
+                filenames[i] = "shared".equals(benchmark.keys)
+                        ? "bench_shared_2024-01-01.xml"
+                        : BenchmarkSupport.customer(thread.getThreadIndex() * FILES_PER_THREAD + i) + "_bench_2024-01-01.xml";
+            }
+        }
+
+        private String nextFilename() {
+            String filename = filenames[next];
+            next = (next + 1) % filenames.length;
+
+            return filename;
+        }
+    }
+
+    @Benchmark
+    public void replace(Writer writer) {
+        fileProcessingService.storeFile(writer.nextFilename(), new ByteArrayInputStream(xml), true);
+    }
+}
@@ -0,0 +1,81 @@
+package syrovyi.vitalii.echovox.common.config.executor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+    public static final String INGEST_EXECUTOR = "ingestExecutor";
+    public static final String STREAMING_EXECUTOR = "streamingExecutor";
+    public static final String UPLOAD_EXECUTOR = "uploadExecutor";
+
+    /**
+     * Bounded pool for batch conversions. When the queue is full the submitting thread runs the task
+     * itself, which throttles how fast a batch is read from the request.
+     */
+    @Bean(name = INGEST_EXECUTOR)
+    public ThreadPoolTaskExecutor ingestExecutor(@Value("${file.batch.parallelism:4}") int parallelism,
+                                                 @Value("${file.batch.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ingest-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * Conversion workers for asynchronous uploads. Unlike the ingest pool, a full queue rejects the job
+     * instead of running it on the request thread, so the request can be answered with 429 at once.
+     */
+    @Bean(name = UPLOAD_EXECUTOR)
+    public ThreadPoolTaskExecutor uploadExecutor(@Value("${file.async.workers:4}") int workers,
+                                                 @Value("${file.async.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * Runs {@code StreamingResponseBody} writers; each long-running download holds one thread. In
+     * virtual-thread mode every stream gets its own virtual thread, capped at the same parallelism.
+     */
+    @Bean(name = STREAMING_EXECUTOR)
+    public AsyncTaskExecutor streamingExecutor(@Value("${file.search.stream-parallelism:16}") int parallelism,
+                                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("stream-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(parallelism);
+
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(parallelism * 4);
+        executor.setThreadNamePrefix("stream-");
+        executor.initialize();
+
+        return executor;
+    }
+}
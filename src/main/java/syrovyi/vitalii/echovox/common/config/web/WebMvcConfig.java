@@ -0,0 +1,22 @@
+package syrovyi.vitalii.echovox.common.config.web;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import syrovyi.vitalii.echovox.common.config.executor.ExecutorConfig;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+    private final AsyncTaskExecutor streamingExecutor;
+
+    public WebMvcConfig(@Qualifier(ExecutorConfig.STREAMING_EXECUTOR) AsyncTaskExecutor streamingExecutor) {
+        this.streamingExecutor = streamingExecutor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor);
+    }
+}
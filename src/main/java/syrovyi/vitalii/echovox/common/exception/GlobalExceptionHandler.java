@@ -7,6 +7,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
@@ -27,11 +28,13 @@ import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
+    private static final String RETRY_AFTER_SECONDS = "1";
 
     @ExceptionHandler(ClientBackendException.class)
     public ResponseEntity<Object> handleClientBackendException(ClientBackendException ex, WebRequest request) {
@@ -104,6 +107,16 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     }
 
 
+    /**
+     * A bounded executor, e.g. the one running streamed responses, is saturated: the request may
+     * succeed once other work finished, so it is answered with 503 and {@code Retry-After}.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Object> handleRejectedExecution(RejectedExecutionException ex, WebRequest request) {
+        log.warn("Task rejected by a saturated executor: {}", ex.getMessage());
+        return buildErrorResponse(ex, ErrorCode.SERVICE_UNAVAILABLE, "Server is busy, retry later", request);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGenericException(Exception ex, WebRequest request) {
         log.error("An unexpected error occurred: {}", ex.getMessage(), ex);
@@ -139,7 +152,14 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                 getPath(request)
         );
 
-        return new ResponseEntity<>(responseBody, status);
+        // errors are always JSON, also for requests that only accept e.g. NDJSON or event streams
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (status == HttpStatus.TOO_MANY_REQUESTS || status == HttpStatus.SERVICE_UNAVAILABLE) {
+            headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        }
+
+        return new ResponseEntity<>(responseBody, headers, status);
     }
 
     private void logException(Exception ex) {
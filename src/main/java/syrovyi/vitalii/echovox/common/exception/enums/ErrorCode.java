@@ -22,8 +22,12 @@ public enum ErrorCode {
     // 409 Conflict
     ALREADY_EXISTS("409-001", "Resource already exists", HttpStatus.CONFLICT),
 
+    // 429 Too Many Requests
+    TOO_MANY_REQUESTS("429-000", "Too many requests, retry later", HttpStatus.TOO_MANY_REQUESTS),
+
     // 5xx Server Errors
-    INTERNAL_SERVER_ERROR("500-000", "An unexpected internal server error occurred", HttpStatus.INTERNAL_SERVER_ERROR);
+    INTERNAL_SERVER_ERROR("500-000", "An unexpected internal server error occurred", HttpStatus.INTERNAL_SERVER_ERROR),
+    SERVICE_UNAVAILABLE("503-000", "Service temporarily unavailable, retry later", HttpStatus.SERVICE_UNAVAILABLE);
 
 
     private final String code;
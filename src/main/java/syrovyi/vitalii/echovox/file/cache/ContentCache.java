@@ -0,0 +1,19 @@
+package syrovyi.vitalii.echovox.file.cache;
+
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.CacheStatsResponseDTO;
+
+import java.util.function.Function;
+
+/**
+ * Cache of parsed documents keyed by stored filename.
+ */
+public interface ContentCache {
+    CustomerJsonDTO get(String storedName, Function<String, CustomerJsonDTO> loader);
+
+    void invalidate(String storedName);
+
+    void invalidateAll();
+
+    CacheStatsResponseDTO stats();
+}
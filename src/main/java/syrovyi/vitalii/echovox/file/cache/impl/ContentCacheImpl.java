@@ -0,0 +1,96 @@
+package syrovyi.vitalii.echovox.file.cache.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.file.cache.ContentCache;
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.CacheStatsResponseDTO;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Caffeine-backed cache (W-TinyLFU eviction) bounded by an estimate of the retained heap in bytes.
+ */
+@Slf4j
+@Component
+public class ContentCacheImpl implements ContentCache {
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final boolean enabled;
+    private final long maxWeightBytes;
+    private final Cache<String, CustomerJsonDTO> cache;
+
+    public ContentCacheImpl(@Value("${file.cache.enabled:true}") boolean enabled,
+                            @Value("${file.cache.max-weight-bytes:67108864}") long maxWeightBytes,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWeightBytes = maxWeightBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher(ContentCacheImpl::weigh)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "content");
+        log.info("Content cache {} with a budget of {} bytes", enabled ? "enabled" : "disabled", maxWeightBytes);
+    }
+
+    @Override
+    public CustomerJsonDTO get(String storedName, Function<String, CustomerJsonDTO> loader) {
+        if (!enabled) {
+            return loader.apply(storedName);
+        }
+
+        return cache.get(storedName, loader);
+    }
+
+    @Override
+    public void invalidate(String storedName) {
+        cache.invalidate(storedName);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public CacheStatsResponseDTO stats() {
+        CacheStats stats = cache.stats();
+        long weightedSize = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+
+        return CacheStatsResponseDTO.builder()
+                .enabled(enabled)
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .evictionWeight(stats.evictionWeight())
+                .loadFailureCount(stats.loadFailureCount())
+                .entryCount(cache.estimatedSize())
+                .weightedSizeBytes(weightedSize)
+                .maxWeightBytes(maxWeightBytes)
+                .build();
+    }
+
+    private static int weigh(String storedName, CustomerJsonDTO content) {
+        long chars = (long) storedName.length()
+                + length(content.getCustomerId())
+                + length(content.getCustomerName())
+                + length(content.getPayload());
+
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD_BYTES + 2 * chars);
+    }
+
+    private static int length(String value) {
+        return Objects.isNull(value) ? 0 : value.length();
+    }
+}
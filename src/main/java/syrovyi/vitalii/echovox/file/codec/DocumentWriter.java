@@ -0,0 +1,17 @@
+package syrovyi.vitalii.echovox.file.codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Receives the fields of one stored document as they are converted. Field names are the
+ * {@code CustomerJsonDTO} property names.
+ */
+public interface DocumentWriter extends Closeable {
+    void writeField(String name, String value) throws IOException;
+
+    void writeField(String name, Reader value) throws IOException;
+
+    void writeNull(String name) throws IOException;
+}
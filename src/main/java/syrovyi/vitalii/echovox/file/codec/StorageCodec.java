@@ -0,0 +1,39 @@
+package syrovyi.vitalii.echovox.file.codec;
+
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * On-disk encoding of stored documents, selected per deployment with {@code file.storage.codec}.
+ * Each codec owns a file extension so stored names reveal their format.
+ */
+public interface StorageCodec {
+    /**
+     * Extensions of all codecs, whichever one is active.
+     */
+    Set<String> EXTENSIONS = Set.of(".json", ".smile", ".cbor", ".bin");
+
+    String name();
+
+    String extension();
+
+    String contentType();
+
+    /**
+     * Starts a document on {@code out}; closing the writer completes it but leaves {@code out} open.
+     */
+    DocumentWriter openWriter(OutputStream out) throws IOException;
+
+    CustomerJsonDTO read(InputStream content) throws IOException;
+
+    /**
+     * Whether {@code storedName} was written by another codec, so this one can neither list nor read it.
+     */
+    default boolean isForeign(String storedName) {
+        return !storedName.endsWith(extension()) && EXTENSIONS.stream().anyMatch(storedName::endsWith);
+    }
+}
@@ -0,0 +1,143 @@
+package syrovyi.vitalii.echovox.file.codec.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.file.codec.DocumentWriter;
+import syrovyi.vitalii.echovox.file.codec.StorageCodec;
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed layout of the three {@link CustomerJsonDTO} fields: a version byte followed by
+ * {@code customerId}, {@code customerName} and {@code payload}, each as a big-endian {@code int} byte
+ * length ({@code -1} for {@code null}) and UTF-8 bytes. Reading needs no tokenizer at all.
+ * <p>
+ * Lengths precede the data, so the writer collects field values before emitting the record; a field
+ * may hold at most {@code file.storage.max-buffered-field-chars} characters.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.codec", havingValue = "binary")
+public class BinaryStorageCodec implements StorageCodec {
+    private static final byte VERSION = 1;
+    private static final int NULL_LENGTH = -1;
+    private static final String CUSTOMER_ID = "customerId";
+    private static final String CUSTOMER_NAME = "customerName";
+    private static final String PAYLOAD = "payload";
+
+    private final int maxBufferedFieldChars;
+
+    public BinaryStorageCodec(@Value("${file.storage.max-buffered-field-chars:16777216}") int maxBufferedFieldChars) {
+        this.maxBufferedFieldChars = maxBufferedFieldChars;
+    }
+
+    @Override
+    public String name() {
+        return "binary";
+    }
+
+    @Override
+    public String extension() {
+        return ".bin";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/octet-stream";
+    }
+
+    @Override
+    public DocumentWriter openWriter(OutputStream out) {
+        return new BinaryDocumentWriter(out, maxBufferedFieldChars);
+    }
+
+    @Override
+    public CustomerJsonDTO read(InputStream content) throws IOException {
+        DataInputStream data = new DataInputStream(content);
+        if (data.read() != VERSION) {
+            throw new IOException("Unsupported binary document version");
+        }
+        CustomerJsonDTO dto = new CustomerJsonDTO();
+        dto.setCustomerId(readString(data));
+        dto.setCustomerName(readString(data));
+        dto.setPayload(readString(data));
+
+        return dto;
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = data.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException("Truncated binary document");
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class BinaryDocumentWriter implements DocumentWriter {
+        private final OutputStream out;
+        private final int maxFieldChars;
+        private String customerId;
+        private String customerName;
+        private String payload;
+
+        private BinaryDocumentWriter(OutputStream out, int maxFieldChars) {
+            this.out = out;
+            this.maxFieldChars = maxFieldChars;
+        }
+
+        @Override
+        public void writeField(String name, String value) {
+            switch (name) {
+                case CUSTOMER_ID -> customerId = value;
+                case CUSTOMER_NAME -> customerName = value;
+                case PAYLOAD -> payload = value;
+                default -> {
+                    // not part of the layout
+                }
+            }
+        }
+
+        @Override
+        public void writeField(String name, Reader value) throws IOException {
+            writeField(name, BufferedFieldText.read(value, name, maxFieldChars, "binary"));
+        }
+
+        @Override
+        public void writeNull(String name) {
+            writeField(name, (String) null);
+        }
+
+        @Override
+        public void close() throws IOException {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeByte(VERSION);
+            writeString(data, customerId);
+            writeString(data, customerName);
+            writeString(data, payload);
+            data.flush();
+        }
+
+        private static void writeString(DataOutputStream data, String value) throws IOException {
+            if (value == null) {
+                data.writeInt(NULL_LENGTH);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+    }
+}
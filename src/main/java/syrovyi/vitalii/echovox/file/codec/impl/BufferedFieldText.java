@@ -0,0 +1,34 @@
+package syrovyi.vitalii.echovox.file.codec.impl;
+
+import syrovyi.vitalii.echovox.common.exception.enums.ErrorCode;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads a streamed field whole, for codecs that need a string before they can write it. The text is
+ * capped by {@code file.storage.max-buffered-field-chars}, so such a codec cannot be made to hold an
+ * arbitrarily large payload in memory.
+ */
+final class BufferedFieldText {
+    private static final int BUFFER_SIZE = 8192;
+
+    private BufferedFieldText() {
+    }
+
+    static String read(Reader value, String name, int maxChars, String codec) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = value.read(buffer)) != -1) {
+            if ((long) text.length() + read > maxChars) {
+                throw new ClientBackendException(ErrorCode.VALIDATION_ERROR, String.format(
+                        "Field '%s' exceeds %d characters, the most the %s codec holds in memory", name, maxChars, codec));
+            }
+            text.append(buffer, 0, read);
+        }
+
+        return text.toString();
+    }
+}
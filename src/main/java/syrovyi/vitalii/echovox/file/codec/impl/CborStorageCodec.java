@@ -0,0 +1,135 @@
+package syrovyi.vitalii.echovox.file.codec.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.file.codec.DocumentWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CBOR (RFC 8949): length-prefixed binary encoding of the JSON data model.
+ * <p>
+ * Jackson's CBOR generator needs each string whole, so documents are written by hand: an
+ * indefinite-length map whose streamed fields are indefinite-length text strings, i.e. a sequence of
+ * length-prefixed UTF-8 chunks. Heap usage therefore does not depend on the payload size. Reading goes
+ * through Jackson, which accepts chunked strings.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.codec", havingValue = "cbor")
+public class CborStorageCodec extends JacksonStorageCodec {
+    private static final int MAJOR_TEXT = 0x60;
+    private static final int INDEFINITE_TEXT = 0x7F;
+    private static final int INDEFINITE_MAP = 0xBF;
+    private static final int NULL = 0xF6;
+    private static final int BREAK = 0xFF;
+    private static final int CHUNK_CHARS = 8192;
+
+    public CborStorageCodec(ObjectMapper objectMapper) {
+        super(objectMapper, new CBORFactory());
+    }
+
+    @Override
+    public String name() {
+        return "cbor";
+    }
+
+    @Override
+    public String extension() {
+        return ".cbor";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/cbor";
+    }
+
+    @Override
+    public DocumentWriter openWriter(OutputStream out) throws IOException {
+        return new CborDocumentWriter(out);
+    }
+
+    private static final class CborDocumentWriter implements DocumentWriter {
+        private final DataOutputStream data;
+
+        private CborDocumentWriter(OutputStream out) throws IOException {
+            this.data = new DataOutputStream(new BufferedOutputStream(out));
+            data.write(INDEFINITE_MAP);
+        }
+
+        @Override
+        public void writeField(String name, String value) throws IOException {
+            if (value == null) {
+                writeNull(name);
+                return;
+            }
+            writeText(name);
+            writeText(value);
+        }
+
+        /**
+         * Chunks end before a high surrogate, so every chunk is valid UTF-8 on its own as CBOR requires.
+         */
+        @Override
+        public void writeField(String name, Reader value) throws IOException {
+            writeText(name);
+            data.write(INDEFINITE_TEXT);
+            char[] buffer = new char[CHUNK_CHARS];
+            int carried = 0;
+            int read;
+            while ((read = value.read(buffer, carried, buffer.length - carried)) != -1) {
+                int end = carried + read;
+                int chunk = end > 0 && Character.isHighSurrogate(buffer[end - 1]) ? end - 1 : end;
+                if (chunk > 0) {
+                    writeText(new String(buffer, 0, chunk));
+                }
+                carried = end - chunk;
+                if (carried > 0) {
+                    buffer[0] = buffer[end - 1];
+                }
+            }
+            if (carried > 0) {
+                writeText(new String(buffer, 0, carried));
+            }
+            data.write(BREAK);
+        }
+
+        @Override
+        public void writeNull(String name) throws IOException {
+            writeText(name);
+            data.write(NULL);
+        }
+
+        /**
+         * Ends the map and flushes, leaving the target open.
+         */
+        @Override
+        public void close() throws IOException {
+            data.write(BREAK);
+            data.flush();
+        }
+
+        private void writeText(String text) throws IOException {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length < 24) {
+                data.write(MAJOR_TEXT | bytes.length);
+            } else if (bytes.length <= 0xFF) {
+                data.write(MAJOR_TEXT | 24);
+                data.write(bytes.length);
+            } else if (bytes.length <= 0xFFFF) {
+                data.write(MAJOR_TEXT | 25);
+                data.writeShort(bytes.length);
+            } else {
+                data.write(MAJOR_TEXT | 26);
+                data.writeInt(bytes.length);
+            }
+            data.write(bytes);
+        }
+    }
+}
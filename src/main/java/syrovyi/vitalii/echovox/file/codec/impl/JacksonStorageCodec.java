@@ -0,0 +1,100 @@
+package syrovyi.vitalii.echovox.file.codec.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import syrovyi.vitalii.echovox.file.codec.DocumentWriter;
+import syrovyi.vitalii.echovox.file.codec.StorageCodec;
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+
+/**
+ * Base for codecs backed by a Jackson data format, sharing the application's mapper configuration.
+ * Text formats stream field text into the generator; formats whose generator needs each string whole
+ * buffer a field up to {@code maxBufferedFieldChars} characters.
+ * <p>
+ * Stored documents were produced by this service, so the string length limit Jackson applies to
+ * untrusted input is lifted for reads; payload size is bounded by the upload limits instead.
+ */
+abstract class JacksonStorageCodec implements StorageCodec {
+    private final ObjectMapper mapper;
+    private final ObjectReader reader;
+    private final boolean streamsText;
+    private final int maxBufferedFieldChars;
+
+    /**
+     * For formats whose generator streams field text.
+     */
+    protected JacksonStorageCodec(ObjectMapper objectMapper, JsonFactory factory) {
+        this(objectMapper, factory, true, 0);
+    }
+
+    /**
+     * For formats whose generator needs each string whole.
+     */
+    protected JacksonStorageCodec(ObjectMapper objectMapper, JsonFactory factory, int maxBufferedFieldChars) {
+        this(objectMapper, factory, false, maxBufferedFieldChars);
+    }
+
+    private JacksonStorageCodec(ObjectMapper objectMapper, JsonFactory factory, boolean streamsText, int maxBufferedFieldChars) {
+        factory.setStreamReadConstraints(StreamReadConstraints.builder().maxStringLength(Integer.MAX_VALUE).build());
+        this.mapper = objectMapper.copyWith(factory);
+        this.reader = mapper.readerFor(CustomerJsonDTO.class);
+        this.streamsText = streamsText;
+        this.maxBufferedFieldChars = maxBufferedFieldChars;
+    }
+
+    @Override
+    public DocumentWriter openWriter(OutputStream out) throws IOException {
+        JsonGenerator generator = mapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+
+        return new GeneratorDocumentWriter(generator);
+    }
+
+    @Override
+    public CustomerJsonDTO read(InputStream content) throws IOException {
+        return reader.readValue(content);
+    }
+
+    private final class GeneratorDocumentWriter implements DocumentWriter {
+        private final JsonGenerator generator;
+
+        private GeneratorDocumentWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void writeField(String name, String value) throws IOException {
+            generator.writeStringField(name, value);
+        }
+
+        @Override
+        public void writeField(String name, Reader value) throws IOException {
+            if (streamsText) {
+                generator.writeFieldName(name);
+                generator.writeString(value, -1);
+            } else {
+                generator.writeStringField(name, BufferedFieldText.read(value, name, maxBufferedFieldChars, name()));
+            }
+        }
+
+        @Override
+        public void writeNull(String name) throws IOException {
+            generator.writeNullField(name);
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.writeEndObject();
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package syrovyi.vitalii.echovox.file.codec.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compact JSON without indentation. Files stay readable with any text tool.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.codec", havingValue = "json", matchIfMissing = true)
+public class JsonStorageCodec extends JacksonStorageCodec {
+    public JsonStorageCodec(ObjectMapper objectMapper) {
+        super(objectMapper, objectMapper.getFactory().copy());
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public String extension() {
+        return ".json";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/json";
+    }
+}
@@ -0,0 +1,35 @@
+package syrovyi.vitalii.echovox.file.codec.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Smile, Jackson's binary JSON: same data model, no text parsing on read. The generator needs each
+ * string whole, so a field may hold at most {@code file.storage.max-buffered-field-chars} characters.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.codec", havingValue = "smile")
+public class SmileStorageCodec extends JacksonStorageCodec {
+    public SmileStorageCodec(ObjectMapper objectMapper,
+                             @Value("${file.storage.max-buffered-field-chars:16777216}") int maxBufferedFieldChars) {
+        super(objectMapper, new SmileFactory(), maxBufferedFieldChars);
+    }
+
+    @Override
+    public String name() {
+        return "smile";
+    }
+
+    @Override
+    public String extension() {
+        return ".smile";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/x-jackson-smile";
+    }
+}
@@ -0,0 +1,35 @@
+package syrovyi.vitalii.echovox.file.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import syrovyi.vitalii.echovox.file.cache.ContentCache;
+import syrovyi.vitalii.echovox.file.controller.dto.response.CacheStatsResponseDTO;
+
+@RestController
+@RequestMapping("/api/v1/cache")
+@RequiredArgsConstructor
+@Tag(name = "Content Cache", description = "Inspection and maintenance of the parsed-content cache")
+public class CacheController {
+    private final ContentCache contentCache;
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get cache statistics", description = "Returns hit, miss and eviction counters together with the current and maximum cache weight.")
+    public ResponseEntity<CacheStatsResponseDTO> getStats() {
+        return ResponseEntity.ok(contentCache.stats());
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Clear cache", description = "Drops every cached document; subsequent reads go to storage.")
+    public ResponseEntity<Void> clear() {
+        contentCache.invalidateAll();
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+}
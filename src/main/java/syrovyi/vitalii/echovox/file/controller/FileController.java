@@ -3,17 +3,36 @@ package syrovyi.vitalii.echovox.file.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import syrovyi.vitalii.echovox.file.controller.dto.response.BatchUploadResponseDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FilePageResponseDTO;
 import syrovyi.vitalii.echovox.file.controller.dto.response.FileResponseDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FileStatisticsResponseDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.UploadJobResponseDTO;
+import syrovyi.vitalii.echovox.file.service.AsyncUploadService;
+import syrovyi.vitalii.echovox.file.service.BatchUploadService;
+import syrovyi.vitalii.echovox.file.service.ChangeFeedService;
+import syrovyi.vitalii.echovox.file.model.FileProjection;
+import syrovyi.vitalii.echovox.file.model.FileQuery;
+import syrovyi.vitalii.echovox.file.model.RawContent;
+import syrovyi.vitalii.echovox.file.model.Tagged;
 import syrovyi.vitalii.echovox.file.service.FileProcessingService;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/v1/files")
@@ -21,6 +40,9 @@ import java.util.List;
 @Tag(name = "File Management", description = "Operations for uploading, searching, and managing XML/JSON files")
 public class FileController {
     private final FileProcessingService fileProcessingService;
+    private final BatchUploadService batchUploadService;
+    private final AsyncUploadService asyncUploadService;
+    private final ChangeFeedService changeFeedService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Upload XML file", description = "Validates filename, converts XML content to JSON, and saves to storage.")
@@ -30,6 +52,67 @@ public class FileController {
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    @PostMapping(value = "/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload XML file asynchronously", description = "Validates the filename, spools the XML and queues it for conversion. Returns 202 with a job to poll; 429 when the conversion queue is full, 503 when the upload cannot be spooled.")
+    public ResponseEntity<UploadJobResponseDTO> uploadFileAsync(@RequestParam("file") MultipartFile file,
+                                                                @RequestParam(value = "replace", defaultValue = "false") boolean replace) {
+        UploadJobResponseDTO job = asyncUploadService.submit(file, replace);
+
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/api/v1/files/jobs/{jobId}")
+                        .buildAndExpand(job.getJobId())
+                        .toUri())
+                .body(job);
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to file changes", description = "Streams created, replaced and deleted files as Server-Sent Events, each with a sequence number. Resumes after the 'Last-Event-ID' header or 'since' parameter; a 'reset' event means changes were missed and the files should be re-listed.")
+    public SseEmitter subscribeToChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                         @RequestParam(value = "since", required = false) String since) {
+        return changeFeedService.subscribe(Objects.nonNull(lastEventId) ? lastEventId : since);
+    }
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get file statistics", description = "Returns the number of files and their stored bytes, optionally narrowed by 'customer', 'type' and 'date'. Counters are maintained on every write, so no file is listed or read.")
+    public ResponseEntity<FileStatisticsResponseDTO> getStatistics(@RequestParam(value = "customer", required = false) String customer,
+                                                                   @RequestParam(value = "type", required = false) String type,
+                                                                   @RequestParam(value = "date", required = false) LocalDate date) {
+        return ResponseEntity.ok(fileProcessingService.getStatistics(customer, type, date));
+    }
+
+    @GetMapping(value = "/stats/breakdown", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get file statistics per customer, type and date", description = "Returns the file count and stored bytes for every customer, type and date combination, optionally narrowed by 'customer', 'type' and 'date'.")
+    public ResponseEntity<List<FileStatisticsResponseDTO>> getStatisticsBreakdown(@RequestParam(value = "customer", required = false) String customer,
+                                                                                  @RequestParam(value = "type", required = false) String type,
+                                                                                  @RequestParam(value = "date", required = false) LocalDate date) {
+        return ResponseEntity.ok(fileProcessingService.getStatisticsBreakdown(customer, type, date));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get asynchronous upload status", description = "Returns the state of an asynchronous upload: QUEUED, PROCESSING, STORED or FAILED with the error.")
+    public ResponseEntity<UploadJobResponseDTO> getUploadJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(asyncUploadService.getJob(jobId));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload a batch of XML files", description = "Converts every 'file' part in parallel and returns a per-file result; failed files do not abort the batch.")
+    public ResponseEntity<BatchUploadResponseDTO> uploadBatch(@RequestParam("file") List<MultipartFile> files,
+                                                              @RequestParam(value = "replace", defaultValue = "false") boolean replace) {
+        BatchUploadResponseDTO report = batchUploadService.uploadFiles(files, replace);
+
+        return ResponseEntity.ok(report);
+    }
+
+    @PostMapping(value = "/batch", consumes = "application/zip")
+    @Operation(summary = "Upload a ZIP archive of XML files", description = "Streams the archive, converts every entry in parallel and returns a per-file result; failed entries do not abort the batch.")
+    public ResponseEntity<BatchUploadResponseDTO> uploadZip(InputStream zip,
+                                                            @RequestParam(value = "replace", defaultValue = "false") boolean replace) {
+        BatchUploadResponseDTO report = batchUploadService.uploadZip(zip, replace);
+
+        return ResponseEntity.ok(report);
+    }
+
     @PutMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Replace existing file", description = "Overwrites an existing file if the name matches.")
     public ResponseEntity<Void> replaceFile(@RequestParam("file") MultipartFile file) {
@@ -47,32 +130,203 @@ public class FileController {
     }
 
     @GetMapping(value = "/{filename}", produces = MediaType.APPLICATION_JSON_VALUE)
-    @Operation(summary = "Get file content", description = "Retrieves the parsed JSON content of a specific file.")
-    public ResponseEntity<CustomerJsonDTO> getFileContent(@PathVariable String filename) {
-        CustomerJsonDTO content = fileProcessingService.getFileContent(filename);
+    @Operation(summary = "Get file content", description = "Retrieves the parsed JSON content of a specific file. Answers If-None-Match with 304 without reading the file.")
+    public ResponseEntity<CustomerJsonDTO> getFileContent(@PathVariable String filename, WebRequest request) {
+        return conditional(request, new Tagged<>(fileProcessingService.getFileETag(filename),
+                () -> fileProcessingService.getFileContent(filename)));
+    }
+
+    @GetMapping("/{filename}/raw")
+    @Operation(summary = "Get stored file content as is", description = "Streams the stored document bytes without re-parsing them. Supports ETag/Last-Modified revalidation and byte ranges; compressed files are sent with Content-Encoding gzip when the client accepts it.")
+    public ResponseEntity<Resource> getRawContent(@PathVariable String filename,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        RawContent content = fileProcessingService.getRawContent(filename, acceptsGzip(acceptEncoding));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(content.contentType()))
+                .eTag(content.etag())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (content.lastModified() >= 0) {
+            response.lastModified(content.lastModified());
+        }
+        if (content.gzipEncoded()) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.body(content.resource());
+    }
 
-        return ResponseEntity.ok(content);
+    @GetMapping(value = "/by/date", params = "date", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Search files by date", description = "Returns a list of files matching the specific date extracted from the filename. 'fields=name' or 'fields=metadata' lists files without opening them.")
+    public ResponseEntity<List<FileResponseDTO>> getFilesByDate(@RequestParam("date") LocalDate date,
+                                                                @RequestParam(value = "fields", required = false) String fields,
+                                                                WebRequest request) {
+        FileQuery query = FileQuery.byDate(date);
+        FileProjection projection = FileProjection.fromFields(fields);
+
+        return conditional(request, fileProcessingService.queryFilesTagged(query, projection));
     }
 
-    @GetMapping(value = "/by/date", params = "date")
-    @Operation(summary = "Search files by date", description = "Returns a list of files matching the specific date extracted from the filename.")
-    public ResponseEntity<List<FileResponseDTO>> getFilesByDate(@RequestParam("date") LocalDate date) {
-        List<FileResponseDTO> files = fileProcessingService.getFilesByDate(date);
+    @GetMapping(value = "/by/customer", params = "customer", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Search files by customer", description = "Returns a list of files matching the customer name extracted from the filename. 'fields=name' or 'fields=metadata' lists files without opening them.")
+    public ResponseEntity<List<FileResponseDTO>> getFilesByCustomer(@RequestParam("customer") String customer,
+                                                                    @RequestParam(value = "fields", required = false) String fields,
+                                                                    WebRequest request) {
+        FileQuery query = FileQuery.byCustomer(customer);
+        FileProjection projection = FileProjection.fromFields(fields);
 
-        return ResponseEntity.ok(files);
+        return conditional(request, fileProcessingService.queryFilesTagged(query, projection));
     }
 
-    @GetMapping(value = "/by/customer", params = "customer")
-    @Operation(summary = "Search files by customer", description = "Returns a list of files matching the customer name extracted from the filename.")
-    public ResponseEntity<List<FileResponseDTO>> getFilesByCustomer(@RequestParam("customer") String customer) {
-        List<FileResponseDTO> files = fileProcessingService.getFilesByCustomer(customer);
-        return ResponseEntity.ok(files);
+    @GetMapping(value = "/by/type", params = "type", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Search files by type", description = "Returns a list of files matching the document type extracted from the filename. 'fields=name' or 'fields=metadata' lists files without opening them.")
+    public ResponseEntity<List<FileResponseDTO>> getFilesByType(@RequestParam("type") String type,
+                                                                @RequestParam(value = "fields", required = false) String fields,
+                                                                WebRequest request) {
+        FileQuery query = FileQuery.byType(type);
+        FileProjection projection = FileProjection.fromFields(fields);
+
+        return conditional(request, fileProcessingService.queryFilesTagged(query, projection));
     }
 
-    @GetMapping(value = "/by/type", params = "type")
-    @Operation(summary = "Search files by type", description = "Returns a list of files matching the document type extracted from the filename.")
-    public ResponseEntity<List<FileResponseDTO>> getFilesByType(@RequestParam("type") String type) {
-        List<FileResponseDTO> files = fileProcessingService.getFilesByType(type);
-        return ResponseEntity.ok(files);
+    @GetMapping(value = "/by/date", params = {"date", "limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Search files by date, paginated", description = "Returns at most 'limit' files matching the date, plus an opaque cursor for the next page.")
+    public ResponseEntity<FilePageResponseDTO> getFilesByDatePage(@RequestParam("date") LocalDate date,
+                                                                  @RequestParam("limit") int limit,
+                                                                  @RequestParam(value = "fields", required = false) String fields,
+                                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                                  WebRequest request) {
+        FileQuery query = FileQuery.byDate(date);
+        FileProjection projection = FileProjection.fromFields(fields);
+
+        return conditional(request, fileProcessingService.getFilesPageTagged(query, cursor, limit, projection));
+    }
+
+    @GetMapping(value = "/by/customer", params = {"customer", "limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Search files by customer, paginated", description = "Returns at most 'limit' files matching the customer, plus an opaque cursor for the next page.")
+    public ResponseEntity<FilePageResponseDTO> getFilesByCustomerPage(@RequestParam("customer") String customer,
+                                                                      @RequestParam("limit") int limit,
+                                                                      @RequestParam(value = "fields", required = false) String fields,
+                                                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                                                      WebRequest request) {
+        FileQuery query = FileQuery.byCustomer(customer);
+        FileProjection projection = FileProjection.fromFields(fields);
+
+        return conditional(request, fileProcessingService.getFilesPageTagged(query, cursor, limit, projection));
+    }
+
+    @GetMapping(value = "/by/type", params = {"type", "limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Search files by type, paginated", description = "Returns at most 'limit' files matching the document type, plus an opaque cursor for the next page.")
+    public ResponseEntity<FilePageResponseDTO> getFilesByTypePage(@RequestParam("type") String type,
+                                                                  @RequestParam("limit") int limit,
+                                                                  @RequestParam(value = "fields", required = false) String fields,
+                                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                                  WebRequest request) {
+        FileQuery query = FileQuery.byType(type);
+        FileProjection projection = FileProjection.fromFields(fields);
+
+        return conditional(request, fileProcessingService.getFilesPageTagged(query, cursor, limit, projection));
+    }
+
+    @GetMapping(value = "/query", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Search files by combined criteria", description = "Returns files matching every given criterion: customer, type and an inclusive 'from'/'to' date range. Matching uses filenames only; 'fields=name' or 'fields=metadata' lists files without opening them.")
+    public ResponseEntity<List<FileResponseDTO>> queryFiles(@RequestParam(value = "customer", required = false) String customer,
+                                                            @RequestParam(value = "type", required = false) String type,
+                                                            @RequestParam(value = "from", required = false) LocalDate from,
+                                                            @RequestParam(value = "to", required = false) LocalDate to,
+                                                            @RequestParam(value = "fields", required = false) String fields,
+                                                            WebRequest request) {
+        FileQuery query = new FileQuery(customer, type, from, to);
+        FileProjection projection = FileProjection.fromFields(fields);
+
+        return conditional(request, fileProcessingService.queryFilesTagged(query, projection));
+    }
+
+    @GetMapping(value = "/query", params = "limit", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Search files by combined criteria, paginated", description = "Returns at most 'limit' files matching every given criterion, plus an opaque cursor for the next page.")
+    public ResponseEntity<FilePageResponseDTO> queryFilesPage(@RequestParam(value = "customer", required = false) String customer,
+                                                              @RequestParam(value = "type", required = false) String type,
+                                                              @RequestParam(value = "from", required = false) LocalDate from,
+                                                              @RequestParam(value = "to", required = false) LocalDate to,
+                                                              @RequestParam(value = "fields", required = false) String fields,
+                                                              @RequestParam("limit") int limit,
+                                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                                              WebRequest request) {
+        FileQuery query = new FileQuery(customer, type, from, to);
+        FileProjection projection = FileProjection.fromFields(fields);
+
+        return conditional(request, fileProcessingService.getFilesPageTagged(query, cursor, limit, projection));
+    }
+
+    @GetMapping(value = "/search", params = "q", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Full-text search", description = "Returns files whose customer name or payload contains every word of 'q', case-insensitively. Quoted text must appear as a phrase. Answered from the text index without reading documents; 'fields' works as for the other searches.")
+    public ResponseEntity<List<FileResponseDTO>> searchContent(@RequestParam("q") String text,
+                                                               @RequestParam(value = "fields", required = false) String fields,
+                                                               WebRequest request) {
+        FileProjection projection = FileProjection.fromFields(fields);
+
+        return conditional(request, fileProcessingService.searchContentTagged(text, projection));
+    }
+
+    @GetMapping(value = "/by/date", params = "date", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream files by date", description = "Streams every file matching the date as newline-delimited JSON.")
+    public ResponseEntity<StreamingResponseBody> streamFilesByDate(@RequestParam("date") LocalDate date) {
+        return stream(FileQuery.byDate(date));
+    }
+
+    @GetMapping(value = "/by/customer", params = "customer", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream files by customer", description = "Streams every file matching the customer as newline-delimited JSON.")
+    public ResponseEntity<StreamingResponseBody> streamFilesByCustomer(@RequestParam("customer") String customer) {
+        return stream(FileQuery.byCustomer(customer));
+    }
+
+    @GetMapping(value = "/by/type", params = "type", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream files by type", description = "Streams every file matching the document type as newline-delimited JSON.")
+    public ResponseEntity<StreamingResponseBody> streamFilesByType(@RequestParam("type") String type) {
+        return stream(FileQuery.byType(type));
+    }
+
+    @GetMapping(value = "/query", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream files by combined criteria", description = "Streams every file matching all given criteria as newline-delimited JSON.")
+    public ResponseEntity<StreamingResponseBody> streamQueryFiles(@RequestParam(value = "customer", required = false) String customer,
+                                                                  @RequestParam(value = "type", required = false) String type,
+                                                                  @RequestParam(value = "from", required = false) LocalDate from,
+                                                                  @RequestParam(value = "to", required = false) LocalDate to) {
+        return stream(new FileQuery(customer, type, from, to));
+    }
+
+    /**
+     * Checks the validator before the body is produced, so a matching If-None-Match costs no reads.
+     * {@link WebRequest#checkNotModified(String)} already writes the ETag header on a 304.
+     */
+    private static <T> ResponseEntity<T> conditional(WebRequest request, Tagged<T> tagged) {
+        if (request.checkNotModified(tagged.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        return ResponseEntity.ok().eTag(tagged.etag()).body(tagged.body().get());
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(FileQuery query) {
+        StreamingResponseBody body = out -> fileProcessingService.streamFiles(query, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+
+        return false;
     }
-}
\ No newline at end of file
+}
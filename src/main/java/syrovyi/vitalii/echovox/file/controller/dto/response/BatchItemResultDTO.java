@@ -0,0 +1,14 @@
+package syrovyi.vitalii.echovox.file.controller.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+import syrovyi.vitalii.echovox.file.controller.dto.response.enums.BatchItemStatus;
+
+@Data
+@Builder
+public class BatchItemResultDTO {
+    private String fileName;
+    private BatchItemStatus status;
+    private String errorCode;
+    private String message;
+}
@@ -0,0 +1,15 @@
+package syrovyi.vitalii.echovox.file.controller.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BatchUploadResponseDTO {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResultDTO> results;
+}
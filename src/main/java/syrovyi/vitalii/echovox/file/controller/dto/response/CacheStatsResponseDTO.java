@@ -0,0 +1,19 @@
+package syrovyi.vitalii.echovox.file.controller.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CacheStatsResponseDTO {
+    private boolean enabled;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long evictionWeight;
+    private long loadFailureCount;
+    private long entryCount;
+    private long weightedSizeBytes;
+    private long maxWeightBytes;
+}
@@ -0,0 +1,16 @@
+package syrovyi.vitalii.echovox.file.controller.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+import syrovyi.vitalii.echovox.file.controller.dto.response.enums.FileChangeType;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class FileChangeEventDTO {
+    private long sequence;
+    private FileChangeType type;
+    private String fileName;
+    private Instant occurredAt;
+}
@@ -0,0 +1,13 @@
+package syrovyi.vitalii.echovox.file.controller.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class FilePageResponseDTO {
+    private List<FileResponseDTO> items;
+    private String nextCursor;
+}
@@ -1,12 +1,18 @@
 package syrovyi.vitalii.echovox.file.controller.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
 
+import java.time.Instant;
+
 @Data
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class FileResponseDTO {
     private String fileName;
+    private Long size;
+    private Instant lastModified;
     private CustomerJsonDTO content;
 }
@@ -0,0 +1,18 @@
+package syrovyi.vitalii.echovox.file.controller.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FileStatisticsResponseDTO {
+    private String customer;
+    private String type;
+    private LocalDate date;
+    private long files;
+    private long bytes;
+}
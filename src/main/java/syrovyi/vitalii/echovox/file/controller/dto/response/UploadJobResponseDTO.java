@@ -0,0 +1,21 @@
+package syrovyi.vitalii.echovox.file.controller.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import syrovyi.vitalii.echovox.file.controller.dto.response.enums.UploadJobStatus;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadJobResponseDTO {
+    private String jobId;
+    private String fileName;
+    private UploadJobStatus status;
+    private String errorCode;
+    private String message;
+    private Instant submittedAt;
+    private Instant completedAt;
+}
@@ -0,0 +1,6 @@
+package syrovyi.vitalii.echovox.file.controller.dto.response.enums;
+
+public enum BatchItemStatus {
+    STORED,
+    FAILED
+}
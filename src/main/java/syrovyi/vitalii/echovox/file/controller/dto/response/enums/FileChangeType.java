@@ -0,0 +1,7 @@
+package syrovyi.vitalii.echovox.file.controller.dto.response.enums;
+
+public enum FileChangeType {
+    CREATED,
+    REPLACED,
+    DELETED
+}
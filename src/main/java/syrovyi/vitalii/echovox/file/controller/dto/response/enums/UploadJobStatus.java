@@ -0,0 +1,8 @@
+package syrovyi.vitalii.echovox.file.controller.dto.response.enums;
+
+public enum UploadJobStatus {
+    QUEUED,
+    PROCESSING,
+    STORED,
+    FAILED
+}
@@ -0,0 +1,31 @@
+package syrovyi.vitalii.echovox.file.feed;
+
+import syrovyi.vitalii.echovox.file.controller.dto.response.FileChangeEventDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.enums.FileChangeType;
+import syrovyi.vitalii.echovox.file.model.ChangeBatch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory log of file mutations. Each event gets the next sequence number; only the most recent
+ * events are retained. Sequences restart with the application, which is told apart by {@link #epoch()}.
+ */
+public interface ChangeFeed {
+    FileChangeEventDTO publish(FileChangeType type, String fileName);
+
+    /**
+     * Up to {@code limit} events with a sequence greater than {@code after}, oldest first.
+     */
+    ChangeBatch read(long after, int limit);
+
+    /**
+     * Waits until an event after {@code after} is published.
+     *
+     * @return {@code false} if the timeout elapsed first
+     */
+    boolean await(long after, long timeout, TimeUnit unit) throws InterruptedException;
+
+    long latestSequence();
+
+    long epoch();
+}
@@ -0,0 +1,110 @@
+package syrovyi.vitalii.echovox.file.feed.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FileChangeEventDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.enums.FileChangeType;
+import syrovyi.vitalii.echovox.file.feed.ChangeFeed;
+import syrovyi.vitalii.echovox.file.model.ChangeBatch;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the last {@code file.feed.capacity} events in a ring buffer indexed by sequence. Publishing and
+ * reading take one short lock; subscribers wait on a condition instead of polling.
+ */
+@Slf4j
+@Component
+public class ChangeFeedImpl implements ChangeFeed {
+    private final FileChangeEventDTO[] ring;
+    private final long epoch = System.currentTimeMillis();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private long latest;
+
+    public ChangeFeedImpl(@Value("${file.feed.capacity:10000}") int capacity) {
+        this.ring = new FileChangeEventDTO[Math.max(capacity, 1)];
+        log.info("Change feed retains the last {} events (epoch {})", ring.length, epoch);
+    }
+
+    @Override
+    public FileChangeEventDTO publish(FileChangeType type, String fileName) {
+        lock.lock();
+        try {
+            FileChangeEventDTO event = FileChangeEventDTO.builder()
+                    .sequence(++latest)
+                    .type(type)
+                    .fileName(fileName)
+                    .occurredAt(Instant.now())
+                    .build();
+            ring[slot(event.getSequence())] = event;
+            published.signalAll();
+
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ChangeBatch read(long after, int limit) {
+        lock.lock();
+        try {
+            long oldest = Math.max(latest - ring.length + 1, 1);
+            if (after > latest || after < oldest - 1) {
+                return new ChangeBatch(List.of(), true, latest);
+            }
+            int count = (int) Math.min(latest - after, limit);
+            List<FileChangeEventDTO> events = new ArrayList<>(count);
+            for (long sequence = after + 1; sequence <= after + count; sequence++) {
+                events.add(ring[slot(sequence)]);
+            }
+
+            return new ChangeBatch(events, false, latest);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean await(long after, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (latest <= after) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = published.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long latestSequence() {
+        lock.lock();
+        try {
+            return latest;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long epoch() {
+        return epoch;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % ring.length);
+    }
+}
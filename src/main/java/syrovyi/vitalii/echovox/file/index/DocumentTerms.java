@@ -0,0 +1,184 @@
+package syrovyi.vitalii.echovox.file.index;
+
+import syrovyi.vitalii.echovox.file.codec.DocumentWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Collects the term positions of one document for the {@link TextIndex}. Text is tokenized as it
+ * streams past: {@link #indexing(DocumentWriter)} wraps the writer a document is converted into, so the
+ * indexed fields are never buffered as a whole.
+ * <p>
+ * A term is a maximal run of letters or digits, lower-cased. Each field starts one position after the
+ * previous one ends, so a phrase never matches across fields. Terms longer than
+ * {@link #MAX_TERM_LENGTH} still take a position but are not indexed; tokens beyond the per-document
+ * limit are dropped.
+ */
+public final class DocumentTerms {
+    public static final Set<String> INDEXED_FIELDS = Set.of("customerName", "payload");
+    public static final int MAX_TERM_LENGTH = 64;
+
+    private final Map<String, Positions> positions = new HashMap<>();
+    private final StringBuilder term = new StringBuilder(MAX_TERM_LENGTH);
+    private final int maxTokens;
+    private int position;
+    private int tokens;
+    private boolean overlong;
+
+    public DocumentTerms(int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    public DocumentWriter indexing(DocumentWriter writer) {
+        return new IndexingWriter(writer);
+    }
+
+    public void addField(String text) {
+        if (text != null) {
+            accept(text.toCharArray(), 0, text.length());
+        }
+        endField();
+    }
+
+    /**
+     * Term to its ascending positions; the arrays are trimmed to size.
+     */
+    public Map<String, int[]> positions() {
+        Map<String, int[]> result = new HashMap<>(positions.size() * 2);
+        positions.forEach((t, p) -> result.put(t, p.toArray()));
+        return result;
+    }
+
+    public boolean truncated() {
+        return tokens > maxTokens;
+    }
+
+    /**
+     * Splits query text with the same rules used for documents.
+     */
+    public static List<String> tokenize(String text) {
+        DocumentTerms terms = new DocumentTerms(Integer.MAX_VALUE);
+        terms.addField(text);
+
+        String[] ordered = new String[terms.position];
+        terms.positions.forEach((t, p) -> {
+            for (int i = 0; i < p.size; i++) {
+                ordered[p.values[i]] = t;
+            }
+        });
+        return Arrays.stream(ordered).filter(Objects::nonNull).toList();
+    }
+
+    private void accept(char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            char c = chars[i];
+            if (Character.isLetterOrDigit(c)) {
+                if (term.length() < MAX_TERM_LENGTH) {
+                    term.append(Character.toLowerCase(c));
+                } else {
+                    overlong = true;
+                }
+            } else {
+                endTerm();
+            }
+        }
+    }
+
+    private void endTerm() {
+        if (term.isEmpty()) {
+            return;
+        }
+        if (!overlong && ++tokens <= maxTokens) {
+            positions.computeIfAbsent(term.toString(), t -> new Positions()).add(position);
+        }
+        position++;
+        overlong = false;
+        term.setLength(0);
+    }
+
+    private void endField() {
+        endTerm();
+        position++;
+    }
+
+    private static final class Positions {
+        private int[] values = new int[2];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private final class IndexingWriter implements DocumentWriter {
+        private final DocumentWriter delegate;
+
+        private IndexingWriter(DocumentWriter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void writeField(String name, String value) throws IOException {
+            delegate.writeField(name, value);
+            if (INDEXED_FIELDS.contains(name)) {
+                addField(value);
+            }
+        }
+
+        @Override
+        public void writeField(String name, Reader value) throws IOException {
+            if (!INDEXED_FIELDS.contains(name)) {
+                delegate.writeField(name, value);
+                return;
+            }
+            delegate.writeField(name, new TokenizingReader(value));
+            endField();
+        }
+
+        @Override
+        public void writeNull(String name) throws IOException {
+            delegate.writeNull(name);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private final class TokenizingReader extends Reader {
+        private final Reader delegate;
+
+        private TokenizingReader(Reader delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) throws IOException {
+            int read = delegate.read(buffer, off, len);
+            if (read > 0) {
+                accept(buffer, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package syrovyi.vitalii.echovox.file.index;
+
+import syrovyi.vitalii.echovox.file.model.FileQuery;
+import syrovyi.vitalii.echovox.file.repository.FileMetadata;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-memory index of stored files keyed by the customer, type and date encoded in their names.
+ * All names are original ({@code .xml}) filenames; results are sorted by name.
+ */
+public interface FileIndex {
+    /**
+     * Discards the index and adds every stored file again.
+     */
+    void rebuild();
+
+    void add(String filename);
+
+    void remove(String filename);
+
+    boolean contains(String filename);
+
+    int size();
+
+    /**
+     * Snapshot of all indexed names, in no particular order.
+     */
+    Set<String> names();
+
+    /**
+     * Size and modification time of an indexed file. Looked up in storage once and kept until the file
+     * is added again or removed, so repeated listings do not touch the disk.
+     */
+    FileMetadata metadata(String filename);
+
+    List<String> find(FileQuery query);
+
+    /**
+     * Lazily walks the names matching {@code query} that sort strictly after {@code after}
+     * ({@code null} starts from the beginning). The iterator is weakly consistent with concurrent updates.
+     */
+    Iterator<String> iterate(FileQuery query, String after);
+}
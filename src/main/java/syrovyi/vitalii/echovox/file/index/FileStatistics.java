@@ -0,0 +1,35 @@
+package syrovyi.vitalii.echovox.file.index;
+
+import syrovyi.vitalii.echovox.file.model.FileTotals;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * File counts and stored bytes grouped by the customer, type and date encoded in the filenames, kept
+ * up to date as files are written and deleted. All names are original ({@code .xml}) filenames.
+ */
+public interface FileStatistics {
+    /**
+     * Discards what was recorded and counts every stored file again.
+     */
+    void rebuild();
+
+    /**
+     * Records {@code filename} with its stored size, replacing what was recorded for it before.
+     */
+    void put(String filename, long bytes);
+
+    void remove(String filename);
+
+    /**
+     * Totals over the files matching every non-null argument, answered with one lookup.
+     */
+    FileTotals totals(String customer, String type, LocalDate date);
+
+    /**
+     * Totals per customer, type and date among the files matching every non-null argument, sorted by
+     * customer, type and date. Walks every group, so it costs time proportional to their number.
+     */
+    List<FileTotals> breakdown(String customer, String type, LocalDate date);
+}
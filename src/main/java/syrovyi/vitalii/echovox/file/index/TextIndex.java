@@ -0,0 +1,34 @@
+package syrovyi.vitalii.echovox.file.index;
+
+import java.util.List;
+
+/**
+ * Inverted index over the words of the indexed document fields ({@link DocumentTerms#INDEXED_FIELDS}).
+ * Names are original ({@code .xml}) filenames; results are sorted by name.
+ */
+public interface TextIndex {
+    DocumentTerms newDocument();
+
+    /**
+     * Replaces the indexed terms of {@code filename}. {@code contentHash} identifies the indexed content,
+     * so a restart can tell which files changed while their terms were not yet persisted.
+     */
+    void update(String filename, DocumentTerms terms, String contentHash);
+
+    void remove(String filename);
+
+    /**
+     * Reindexes {@code filename} from storage if its content hash differs from the indexed one, e.g.
+     * after the file was changed outside the application.
+     *
+     * @return whether the content differed from the indexed one; also when it could not be read for indexing
+     */
+    boolean refresh(String filename);
+
+    /**
+     * Files containing every term and every quoted phrase of {@code query}, matched case-insensitively.
+     */
+    List<String> search(String query);
+
+    int size();
+}
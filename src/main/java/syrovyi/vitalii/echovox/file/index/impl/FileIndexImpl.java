@@ -0,0 +1,279 @@
+package syrovyi.vitalii.echovox.file.index.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.file.index.FileIndex;
+import syrovyi.vitalii.echovox.file.metrics.PipelineMetrics;
+import syrovyi.vitalii.echovox.file.metrics.PipelineStage;
+import syrovyi.vitalii.echovox.file.model.FileQuery;
+import syrovyi.vitalii.echovox.file.model.FilenameParts;
+import syrovyi.vitalii.echovox.file.repository.FileMetadata;
+import syrovyi.vitalii.echovox.file.repository.FileSystemRepository;
+import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Every filename is parsed exactly once, when it enters the index. Mutations of a single name are
+ * serialized through {@link ConcurrentHashMap#compute} on {@code entries}, so a concurrent add and
+ * remove of the same file cannot leave its buckets half-updated; reads are lock-free.
+ * <p>
+ * File metadata is loaded lazily and dropped whenever a name is added or removed. The stat runs outside
+ * the map so it never blocks writers on the same bin; a load that overlapped an invalidation takes its
+ * result back out, so a stat that raced with a save cannot stay cached after the save's {@link #add}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileIndexImpl implements FileIndex {
+    private final FileSystemRepository fileSystemRepository;
+    private final FilenameHandlerService filenameHandler;
+    private final PipelineMetrics pipelineMetrics;
+
+    private final ConcurrentMap<String, FilenameParts> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<String>> byCustomer = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<String>> byType = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, FileMetadata> metadata = new ConcurrentHashMap<>();
+    private final AtomicLong metadataInvalidations = new AtomicLong();
+    private final ConcurrentNavigableMap<LocalDate, NavigableSet<String>> byDate = new ConcurrentSkipListMap<>();
+
+    @PostConstruct
+    @Override
+    public void rebuild() {
+        entries.clear();
+        metadata.clear();
+        byCustomer.clear();
+        byType.clear();
+        byDate.clear();
+
+        pipelineMetrics.run(PipelineStage.SCAN, "rebuild", () -> {
+            try (Stream<Path> stream = fileSystemRepository.findFiles(filenameHandler.generateAllGlob())) {
+                stream.map(path -> path.getFileName().toString())
+                        .map(filenameHandler::toOriginalFilename)
+                        .forEach(this::add);
+            }
+        });
+        log.info("File index built with {} entries", entries.size());
+    }
+
+    @Override
+    public void add(String filename) {
+        filenameHandler.parse(filename).ifPresentOrElse(
+                parts -> entries.compute(filename, (name, previous) -> {
+                    addTo(byCustomer, parts.customer(), name);
+                    addTo(byType, parts.type(), name);
+                    if (Objects.nonNull(parts.date())) {
+                        addTo(byDate, parts.date(), name);
+                    }
+                    invalidateMetadata(name);
+                    return parts;
+                }),
+                () -> log.warn("Skipping file with unexpected name: {}", filename));
+    }
+
+    @Override
+    public void remove(String filename) {
+        entries.computeIfPresent(filename, (name, parts) -> {
+            removeFrom(byCustomer, parts.customer(), name);
+            removeFrom(byType, parts.type(), name);
+            if (Objects.nonNull(parts.date())) {
+                removeFrom(byDate, parts.date(), name);
+            }
+            invalidateMetadata(name);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean contains(String filename) {
+        return entries.containsKey(filename);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public Set<String> names() {
+        return Set.copyOf(entries.keySet());
+    }
+
+    @Override
+    public FileMetadata metadata(String filename) {
+        FileMetadata cached = metadata.get(filename);
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+        long invalidations = metadataInvalidations.get();
+        FileMetadata loaded = fileSystemRepository.getMetadata(filenameHandler.toStoredFilename(filename));
+        FileMetadata previous = metadata.putIfAbsent(filename, loaded);
+        if (Objects.nonNull(previous)) {
+            return previous;
+        }
+        if (metadataInvalidations.get() != invalidations) {
+            metadata.remove(filename, loaded);
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Counts before removing, so a concurrent load either is removed here or sees the new count.
+     */
+    private void invalidateMetadata(String filename) {
+        metadataInvalidations.incrementAndGet();
+        metadata.remove(filename);
+    }
+
+    @Override
+    public List<String> find(FileQuery query) {
+        List<String> names = new ArrayList<>();
+        iterate(query, null).forEachRemaining(names::add);
+
+        return names;
+    }
+
+    /**
+     * Walks the most selective bucket available (customer, then type, then the dates in range) and
+     * checks any remaining criteria against the filename, so no file is read to decide a match.
+     */
+    @Override
+    public Iterator<String> iterate(FileQuery query, String after) {
+        if (Objects.nonNull(query.customer())) {
+            return filtered(tail(byCustomer.get(query.customer()), after), query,
+                    Objects.nonNull(query.type()) || query.hasDateRange());
+        }
+        if (Objects.nonNull(query.type())) {
+            return filtered(tail(byType.get(query.type()), after), query, query.hasDateRange());
+        }
+        if (query.hasDateRange()) {
+            return datesInRange(query.from(), query.to(), after);
+        }
+        throw new IllegalArgumentException("Unsupported query: " + query);
+    }
+
+    private Iterator<String> filtered(NavigableSet<String> names, FileQuery query, boolean residual) {
+        return residual
+                ? names.stream().filter(name -> filenameHandler.matches(name, query)).iterator()
+                : names.iterator();
+    }
+
+    /**
+     * Names under different dates are disjoint, so a k-way merge of the per-date sets yields every
+     * name in range exactly once, in name order.
+     */
+    private Iterator<String> datesInRange(LocalDate from, LocalDate to, String after) {
+        NavigableMap<LocalDate, NavigableSet<String>> range = byDate;
+        if (Objects.nonNull(from)) {
+            range = range.tailMap(from, true);
+        }
+        if (Objects.nonNull(to)) {
+            range = range.headMap(to, true);
+        }
+        if (range.size() == 1) {
+            return tail(range.firstEntry().getValue(), after).iterator();
+        }
+        PriorityQueue<PeekingIterator> heads = new PriorityQueue<>(Comparator.comparing(PeekingIterator::peek));
+        for (NavigableSet<String> names : range.values()) {
+            PeekingIterator head = new PeekingIterator(tail(names, after).iterator());
+            if (head.hasNext()) {
+                heads.add(head);
+            }
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public String next() {
+                PeekingIterator head = heads.poll();
+                if (Objects.isNull(head)) {
+                    throw new NoSuchElementException();
+                }
+                String name = head.next();
+                if (head.hasNext()) {
+                    heads.add(head);
+                }
+                return name;
+            }
+        };
+    }
+
+    private static NavigableSet<String> tail(NavigableSet<String> names, String after) {
+        if (Objects.isNull(names)) {
+            return Collections.emptyNavigableSet();
+        }
+        NavigableSet<String> view = Collections.unmodifiableNavigableSet(names);
+
+        return Objects.isNull(after) ? view : view.tailSet(after, false);
+    }
+
+    private static <K> void addTo(ConcurrentMap<K, NavigableSet<String>> buckets, K key, String filename) {
+        buckets.compute(key, (k, names) -> {
+            NavigableSet<String> set = Objects.isNull(names) ? new ConcurrentSkipListSet<>() : names;
+            set.add(filename);
+            return set;
+        });
+    }
+
+    private static <K> void removeFrom(ConcurrentMap<K, NavigableSet<String>> buckets, K key, String filename) {
+        buckets.computeIfPresent(key, (k, names) -> {
+            names.remove(filename);
+            return names.isEmpty() ? null : names;
+        });
+    }
+
+    private static final class PeekingIterator implements Iterator<String> {
+        private final Iterator<String> delegate;
+        private String next;
+
+        private PeekingIterator(Iterator<String> delegate) {
+            this.delegate = delegate;
+            this.next = delegate.hasNext() ? delegate.next() : null;
+        }
+
+        private String peek() {
+            return next;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return Objects.nonNull(next);
+        }
+
+        @Override
+        public String next() {
+            if (Objects.isNull(next)) {
+                throw new NoSuchElementException();
+            }
+            String current = next;
+            next = delegate.hasNext() ? delegate.next() : null;
+            return current;
+        }
+    }
+}
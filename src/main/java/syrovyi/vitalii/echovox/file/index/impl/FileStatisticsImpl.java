@@ -0,0 +1,143 @@
+package syrovyi.vitalii.echovox.file.index.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.index.FileStatistics;
+import syrovyi.vitalii.echovox.file.metrics.PipelineMetrics;
+import syrovyi.vitalii.echovox.file.metrics.PipelineStage;
+import syrovyi.vitalii.echovox.file.model.FileTotals;
+import syrovyi.vitalii.echovox.file.model.FilenameParts;
+import syrovyi.vitalii.echovox.file.repository.FileSystemRepository;
+import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps one counter per combination of customer, type and date that any filter can ask for: each file
+ * counts towards the 8 groups formed by keeping or dropping each of its three fields. A write updates
+ * those 8 groups, and {@link #totals} reads a single one. Groups are updated atomically through
+ * {@link ConcurrentHashMap#compute} and removed once empty.
+ * <p>
+ * The size recorded per file is what a replace or delete subtracts again. Writes to one name are
+ * serialized by the caller; writes to different names may update shared groups concurrently.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileStatisticsImpl implements FileStatistics {
+    private static final int CUSTOMER = 1;
+    private static final int TYPE = 2;
+    private static final int DATE = 4;
+    private static final int ALL_FIELDS = CUSTOMER | TYPE | DATE;
+    private static final Comparator<FileTotals> GROUP_ORDER = Comparator
+            .comparing(FileTotals::customer)
+            .thenComparing(FileTotals::type)
+            .thenComparing(FileTotals::date, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final FileSystemRepository fileSystemRepository;
+    private final FilenameHandlerService filenameHandler;
+    private final PipelineMetrics pipelineMetrics;
+
+    private final ConcurrentMap<String, Recorded> recorded = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Group, Totals> groups = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    @Override
+    public void rebuild() {
+        recorded.clear();
+        groups.clear();
+
+        pipelineMetrics.run(PipelineStage.SCAN, "statistics", () -> {
+            try (Stream<Path> stream = fileSystemRepository.findFiles(filenameHandler.generateAllGlob())) {
+                stream.map(path -> path.getFileName().toString()).forEach(storedName -> {
+                    try {
+                        put(filenameHandler.toOriginalFilename(storedName), fileSystemRepository.getMetadata(storedName).size());
+                    } catch (ClientBackendException e) {
+                        log.warn("Skipping {} in statistics: {}", storedName, e.getMessage());
+                    }
+                });
+            }
+        });
+        log.info("File statistics built for {} files in {} groups", recorded.size(), groups.size());
+    }
+
+    @Override
+    public void put(String filename, long bytes) {
+        filenameHandler.parse(filename).ifPresentOrElse(parts -> {
+            Recorded previous = recorded.put(filename, new Recorded(parts, bytes));
+            if (Objects.nonNull(previous)) {
+                add(previous.parts(), -1, -previous.bytes());
+            }
+            add(parts, 1, bytes);
+        }, () -> log.warn("Skipping file with unexpected name in statistics: {}", filename));
+    }
+
+    @Override
+    public void remove(String filename) {
+        Recorded previous = recorded.remove(filename);
+        if (Objects.nonNull(previous)) {
+            add(previous.parts(), -1, -previous.bytes());
+        }
+    }
+
+    @Override
+    public FileTotals totals(String customer, String type, LocalDate date) {
+        int fields = (Objects.nonNull(customer) ? CUSTOMER : 0) | (Objects.nonNull(type) ? TYPE : 0)
+                | (Objects.nonNull(date) ? DATE : 0);
+        Totals totals = groups.getOrDefault(new Group(fields, customer, type, date), Totals.NONE);
+
+        return new FileTotals(customer, type, date, totals.files(), totals.bytes());
+    }
+
+    @Override
+    public List<FileTotals> breakdown(String customer, String type, LocalDate date) {
+        return groups.entrySet().stream()
+                .filter(entry -> entry.getKey().fields() == ALL_FIELDS)
+                .filter(entry -> Objects.isNull(customer) || customer.equals(entry.getKey().customer()))
+                .filter(entry -> Objects.isNull(type) || type.equals(entry.getKey().type()))
+                .filter(entry -> Objects.isNull(date) || date.equals(entry.getKey().date()))
+                .map(entry -> new FileTotals(entry.getKey().customer(), entry.getKey().type(), entry.getKey().date(),
+                        entry.getValue().files(), entry.getValue().bytes()))
+                .sorted(GROUP_ORDER)
+                .toList();
+    }
+
+    private void add(FilenameParts parts, long files, long bytes) {
+        for (int fields = 0; fields <= ALL_FIELDS; fields++) {
+            Group group = new Group(fields,
+                    (fields & CUSTOMER) != 0 ? parts.customer() : null,
+                    (fields & TYPE) != 0 ? parts.type() : null,
+                    (fields & DATE) != 0 ? parts.date() : null);
+            groups.compute(group, (key, current) -> {
+                Totals base = Objects.isNull(current) ? Totals.NONE : current;
+                Totals updated = new Totals(base.files() + files, base.bytes() + bytes);
+
+                return updated.files() == 0 ? null : updated;
+            });
+        }
+    }
+
+    /**
+     * {@code fields} tells which of the three values are part of the group, so a file without a valid
+     * date is not mistaken for the group of all dates.
+     */
+    private record Group(int fields, String customer, String type, LocalDate date) {
+    }
+
+    private record Totals(long files, long bytes) {
+        private static final Totals NONE = new Totals(0, 0);
+    }
+
+    private record Recorded(FilenameParts parts, long bytes) {
+    }
+}
@@ -0,0 +1,675 @@
+package syrovyi.vitalii.echovox.file.index.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.codec.StorageCodec;
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+import syrovyi.vitalii.echovox.file.index.DocumentTerms;
+import syrovyi.vitalii.echovox.file.index.TextIndex;
+import syrovyi.vitalii.echovox.file.index.impl.TextSegment.Posting;
+import syrovyi.vitalii.echovox.file.index.impl.TextSegment.TermPostings;
+import syrovyi.vitalii.echovox.file.repository.FileSystemRepository;
+import syrovyi.vitalii.echovox.file.repository.impl.StorageSync;
+import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Positional inverted index kept under {@code <upload-dir>/.text-index}.
+ *
+ * <p>Updates go to an in-memory buffer that is written out as a new immutable {@link TextSegment}
+ * every {@code file.text-index.flush-docs} documents or {@code flush-interval-ms}, and on shutdown. Once
+ * there are more than {@code max-segments} segments they are merged into one, dropping postings of
+ * replaced and removed documents. On startup the segments are memory-mapped and a background pass
+ * compares every stored file's content hash with the indexed one, reindexing files whose terms were
+ * not persisted before a crash and dropping files that no longer exist.
+ *
+ * <p>Every indexed version of a document gets a new id; a posting counts only while its id is the
+ * current one for that name, so replacing or removing a document never rewrites a segment. A removal
+ * is recorded as a tombstone: a document entry without a hash or postings whose id outranks the
+ * removed version, so it stays removed across restarts. Merges drop both.
+ */
+@Slf4j
+@Component
+public class TextIndexImpl implements TextIndex {
+    private static final String INDEX_DIRECTORY = ".text-index";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".idx";
+
+    private final FileSystemRepository fileSystemRepository;
+    private final FilenameHandlerService filenameHandler;
+    private final StorageCodec storageCodec;
+    private final StorageSync storageSync;
+    private final Path indexDirectory;
+    private final int flushDocs;
+    private final long flushIntervalMs;
+    private final int maxSegments;
+    private final int maxTokensPerDocument;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, DocRecord> live = new HashMap<>();
+    private final Map<Integer, String> liveNames = new HashMap<>();
+    private List<TextSegment> segments = List.of();
+    private Buffer buffer = new Buffer();
+    private Buffer flushing;
+    private int nextDocId;
+    private long nextGeneration;
+
+    private final Object flushMonitor = new Object();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("text-index").daemon().factory());
+    private volatile boolean closed;
+
+    public TextIndexImpl(FileSystemRepository fileSystemRepository,
+                         FilenameHandlerService filenameHandler,
+                         StorageCodec storageCodec,
+                         StorageSync storageSync,
+                         @Value("${file.upload-dir}") String uploadDir,
+                         @Value("${file.text-index.flush-docs:1000}") int flushDocs,
+                         @Value("${file.text-index.flush-interval-ms:5000}") long flushIntervalMs,
+                         @Value("${file.text-index.max-segments:8}") int maxSegments,
+                         @Value("${file.text-index.max-tokens-per-document:1000000}") int maxTokensPerDocument) {
+        this.fileSystemRepository = fileSystemRepository;
+        this.filenameHandler = filenameHandler;
+        this.storageCodec = storageCodec;
+        this.storageSync = storageSync;
+        this.indexDirectory = Paths.get(uploadDir).resolve(INDEX_DIRECTORY);
+        this.flushDocs = flushDocs;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxSegments = maxSegments;
+        this.maxTokensPerDocument = maxTokensPerDocument;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(indexDirectory);
+            openSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open text index in " + indexDirectory, e);
+        }
+        log.info("Text index opened with {} documents in {} segments", live.size(), segments.size());
+
+        maintenance.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        Thread.ofPlatform().name("text-index-reconcile").daemon().start(this::reconcile);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        closed = true;
+        maintenance.shutdown();
+        maintenance.awaitTermination(1, TimeUnit.MINUTES);
+        flushQuietly();
+    }
+
+    @Override
+    public DocumentTerms newDocument() {
+        return new DocumentTerms(maxTokensPerDocument);
+    }
+
+    @Override
+    public void update(String filename, DocumentTerms terms, String contentHash) {
+        replace(filename, terms, contentHash, null, false);
+    }
+
+    @Override
+    public void remove(String filename) {
+        boolean full;
+        lock.writeLock().lock();
+        try {
+            full = removeLive(filename);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        queueFlushIf(full);
+    }
+
+    /**
+     * Drops the live entry of {@code filename} and buffers its tombstone. Must hold the write lock.
+     *
+     * @return whether the buffer is due for a flush
+     */
+    private boolean removeLive(String filename) {
+        DocRecord previous = live.remove(filename);
+        if (Objects.isNull(previous)) {
+            return false;
+        }
+        liveNames.remove(previous.docId());
+        buffer.add(new DocRecord(nextDocId++, filename, null), Map.of());
+
+        return buffer.docs.size() >= flushDocs;
+    }
+
+    @Override
+    public List<String> search(String query) {
+        List<List<String>> clauses = parse(query);
+        if (clauses.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Set<Integer> matches = null;
+            for (List<String> clause : clauses) {
+                Set<Integer> docs = clause.size() == 1 ? postings(clause.get(0), false).keySet() : phrase(clause);
+                if (Objects.isNull(matches)) {
+                    matches = new HashSet<>(docs);
+                } else {
+                    matches.retainAll(docs);
+                }
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return matches.stream().map(liveNames::get).sorted().toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bare words are single terms, unless the tokenizer splits them (e.g. {@code foo-bar}); quoted text
+     * is a phrase. An unterminated quote runs to the end of the query.
+     */
+    private static List<List<String>> parse(String query) {
+        List<List<String>> clauses = new ArrayList<>();
+        if (Objects.isNull(query)) {
+            return clauses;
+        }
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> texts = i % 2 == 1 ? List.of(parts[i]) : Arrays.asList(parts[i].trim().split("\\s+"));
+            for (String text : texts) {
+                List<String> tokens = DocumentTerms.tokenize(text);
+                if (!tokens.isEmpty()) {
+                    clauses.add(tokens);
+                }
+            }
+        }
+        return clauses;
+    }
+
+    /**
+     * Live documents containing {@code term}, across segments and buffers. Must hold the read lock.
+     */
+    private Map<Integer, int[]> postings(String term, boolean withPositions) {
+        Map<Integer, int[]> docs = new HashMap<>();
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        for (TextSegment segment : segments) {
+            int ordinal = segment.find(bytes);
+            if (ordinal >= 0) {
+                segment.forEachPosting(ordinal, withPositions, (docId, positions) -> {
+                    if (liveNames.containsKey(docId)) {
+                        docs.put(docId, positions);
+                    }
+                });
+            }
+        }
+        for (Buffer source : new Buffer[]{flushing, buffer}) {
+            if (Objects.nonNull(source)) {
+                for (Posting posting : source.postings.getOrDefault(term, List.of())) {
+                    if (liveNames.containsKey(posting.docId())) {
+                        docs.put(posting.docId(), posting.positions());
+                    }
+                }
+            }
+        }
+        return docs;
+    }
+
+    private Set<Integer> phrase(List<String> terms) {
+        List<Map<Integer, int[]>> postings = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Map<Integer, int[]> docs = postings(term, true);
+            if (docs.isEmpty()) {
+                return Set.of();
+            }
+            postings.add(docs);
+        }
+        Set<Integer> matches = new HashSet<>();
+        for (Map.Entry<Integer, int[]> first : postings.get(0).entrySet()) {
+            if (containsPhrase(first.getKey(), first.getValue(), postings)) {
+                matches.add(first.getKey());
+            }
+        }
+        return matches;
+    }
+
+    private static boolean containsPhrase(int docId, int[] starts, List<Map<Integer, int[]>> postings) {
+        int[][] positions = new int[postings.size()][];
+        for (int i = 1; i < positions.length; i++) {
+            positions[i] = postings.get(i).get(docId);
+            if (Objects.isNull(positions[i])) {
+                return false;
+            }
+        }
+        for (int start : starts) {
+            int i = 1;
+            while (i < positions.length && Arrays.binarySearch(positions[i], start + i) >= 0) {
+                i++;
+            }
+            if (i == positions.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param expected with {@code conditional}, only replace if the current entry is still this one
+     */
+    private void replace(String filename, DocumentTerms terms, String contentHash, DocRecord expected, boolean conditional) {
+        Map<String, int[]> positions = terms.positions();
+        if (terms.truncated()) {
+            log.warn("Indexed only the first {} words of {}", maxTokensPerDocument, filename);
+        }
+        boolean full;
+        lock.writeLock().lock();
+        try {
+            DocRecord previous = live.get(filename);
+            if (conditional && previous != expected) {
+                return;
+            }
+            DocRecord doc = new DocRecord(nextDocId++, filename, contentHash);
+            live.put(filename, doc);
+            if (Objects.nonNull(previous)) {
+                liveNames.remove(previous.docId());
+            }
+            liveNames.put(doc.docId(), filename);
+            buffer.add(doc, positions);
+            full = buffer.docs.size() >= flushDocs;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        queueFlushIf(full);
+    }
+
+    private void queueFlushIf(boolean full) {
+        if (full && flushQueued.compareAndSet(false, true)) {
+            maintenance.execute(() -> {
+                flushQueued.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            log.error("Writing the text index failed; buffered documents are kept in memory", e);
+        }
+    }
+
+    /**
+     * Detaches the buffer, writes it as a segment without holding the lock, then publishes the segment.
+     * Searches keep seeing the detached buffer until then.
+     */
+    private void flush() throws IOException {
+        synchronized (flushMonitor) {
+            Buffer pending;
+            long generation;
+            lock.writeLock().lock();
+            try {
+                if (buffer.docs.isEmpty()) {
+                    return;
+                }
+                pending = buffer;
+                flushing = pending;
+                buffer = new Buffer();
+                generation = nextGeneration++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            TextSegment segment;
+            try {
+                segment = writeSegment(generation, pending.docs, pending.sortedTerms());
+            } catch (IOException e) {
+                lock.writeLock().lock();
+                try {
+                    pending.addAll(buffer);
+                    buffer = pending;
+                    flushing = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                segments = append(segments, segment);
+                flushing = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (segments.size() > maxSegments) {
+                merge();
+            }
+        }
+    }
+
+    /**
+     * Merges every current segment into one. Runs on the maintenance thread, under the flush monitor.
+     */
+    private void merge() throws IOException {
+        List<TextSegment> merging;
+        Set<Integer> liveDocs;
+        long generation;
+        lock.readLock().lock();
+        try {
+            merging = segments;
+            liveDocs = Set.copyOf(liveNames.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            generation = nextGeneration++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Integer, DocRecord> docs = new HashMap<>();
+        for (TextSegment segment : merging) {
+            segment.forEachDocument(doc -> {
+                if (liveDocs.contains(doc.docId())) {
+                    docs.put(doc.docId(), doc);
+                }
+            });
+        }
+        List<DocRecord> sortedDocs = docs.values().stream().sorted(Comparator.comparingInt(DocRecord::docId)).toList();
+        TextSegment merged = writeSegment(generation, sortedDocs, new MergingTerms(merging, liveDocs));
+
+        lock.writeLock().lock();
+        try {
+            List<TextSegment> remaining = new ArrayList<>(segments);
+            remaining.removeAll(merging);
+            remaining.add(0, merged);
+            segments = List.copyOf(remaining);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (TextSegment segment : merging) {
+            Files.deleteIfExists(segment.path);
+        }
+        storageSync.syncDirectory(indexDirectory);
+        log.info("Merged {} text index segments into {} ({} documents)", merging.size(), merged.path.getFileName(), sortedDocs.size());
+    }
+
+    /**
+     * The directory is synced after the rename, so a merge never deletes segments whose replacement
+     * could still vanish in a crash.
+     */
+    private TextSegment writeSegment(long generation, List<DocRecord> docs, Iterator<TermPostings> terms) throws IOException {
+        Path path = indexDirectory.resolve(SEGMENT_PREFIX + generation + SEGMENT_SUFFIX);
+        TextSegment.write(path, docs, terms);
+        storageSync.syncDirectory(indexDirectory);
+        return TextSegment.open(path, generation);
+    }
+
+    /**
+     * Maps every segment and rebuilds the live table: the highest id recorded for a name is its current
+     * version, unless that is a tombstone. Unreadable segments are dropped; the reconcile pass reindexes
+     * what they held.
+     */
+    private void openSegments() throws IOException {
+        List<TextSegment> opened = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(indexDirectory)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(path);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        long generation = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                        opened.add(TextSegment.open(path, generation));
+                    } catch (IOException | NumberFormatException e) {
+                        log.warn("Dropping unreadable text index segment {}: {}", path, e.getMessage());
+                        Files.deleteIfExists(path);
+                    }
+                }
+            }
+        }
+        opened.sort(Comparator.comparingLong(segment -> segment.generation));
+        Map<String, DocRecord> latest = new HashMap<>();
+        for (TextSegment segment : opened) {
+            segment.forEachDocument(doc -> {
+                latest.merge(doc.filename(), doc, (current, next) -> next.docId() > current.docId() ? next : current);
+                nextDocId = Math.max(nextDocId, doc.docId() + 1);
+            });
+            nextGeneration = Math.max(nextGeneration, segment.generation + 1);
+        }
+        latest.values().stream().filter(doc -> !doc.removed()).forEach(doc -> {
+            live.put(doc.filename(), doc);
+            liveNames.put(doc.docId(), doc.filename());
+        });
+        segments = List.copyOf(opened);
+    }
+
+    /**
+     * Brings the index in line with storage after a restart. Files written during the pass are indexed
+     * by their uploads; the pass only replaces entries it has seen unchanged and only drops documents
+     * indexed before it started.
+     */
+    private void reconcile() {
+        int firstNewDocId;
+        lock.readLock().lock();
+        try {
+            firstNewDocId = nextDocId;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Set<String> stored = new HashSet<>();
+        int[] reindexed = {0};
+        try (Stream<Path> files = fileSystemRepository.findFiles(filenameHandler.generateAllGlob())) {
+            files.map(path -> filenameHandler.toOriginalFilename(path.getFileName().toString()))
+                    .takeWhile(name -> !closed)
+                    .forEach(name -> {
+                        stored.add(name);
+                        if (reconcile(name)) {
+                            reindexed[0]++;
+                        }
+                    });
+        } catch (RuntimeException e) {
+            log.error("Text index reconciliation failed", e);
+            return;
+        }
+        if (closed) {
+            return;
+        }
+        int removed = 0;
+        boolean full = false;
+        lock.writeLock().lock();
+        try {
+            for (DocRecord doc : List.copyOf(live.values())) {
+                if (doc.docId() < firstNewDocId && !stored.contains(doc.filename())) {
+                    full |= removeLive(doc.filename());
+                    removed++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        queueFlushIf(full);
+        log.info("Text index reconciled: {} documents changed, {} removed", reindexed[0], removed);
+    }
+
+    @Override
+    public boolean refresh(String filename) {
+        return reconcile(filename);
+    }
+
+    /**
+     * @return whether the content differs from the indexed one, even if it could not be indexed
+     */
+    private boolean reconcile(String filename) {
+        String storedName = filenameHandler.toStoredFilename(filename);
+        String hash;
+        DocRecord current;
+        try {
+            hash = fileSystemRepository.contentHash(storedName);
+            lock.readLock().lock();
+            try {
+                current = live.get(filename);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (Objects.nonNull(current) && hash.equals(current.hash())) {
+                return false;
+            }
+        } catch (ClientBackendException e) {
+            log.warn("Could not index {}: {}", filename, e.getMessage());
+            return false;
+        }
+        try {
+            CustomerJsonDTO content;
+            try (InputStream in = fileSystemRepository.openStream(storedName)) {
+                content = storageCodec.read(in);
+            }
+            DocumentTerms terms = newDocument();
+            terms.addField(content.getCustomerName());
+            terms.addField(content.getPayload());
+            replace(filename, terms, hash, current, true);
+        } catch (IOException | ClientBackendException e) {
+            log.warn("Could not index {}: {}", filename, e.getMessage());
+        }
+        return true;
+    }
+
+    private static List<TextSegment> append(List<TextSegment> segments, TextSegment segment) {
+        List<TextSegment> result = new ArrayList<>(segments);
+        result.add(segment);
+        return List.copyOf(result);
+    }
+
+    /**
+     * @param hash {@code null} for a tombstone
+     */
+    record DocRecord(int docId, String filename, String hash) {
+        boolean removed() {
+            return Objects.isNull(hash);
+        }
+    }
+
+    /**
+     * Documents and postings not yet written to a segment. Postings are appended in id order.
+     */
+    private static final class Buffer {
+        private final List<DocRecord> docs = new ArrayList<>();
+        private final Map<String, List<Posting>> postings = new HashMap<>();
+
+        private void add(DocRecord doc, Map<String, int[]> positions) {
+            docs.add(doc);
+            positions.forEach((term, termPositions) ->
+                    postings.computeIfAbsent(term, t -> new ArrayList<>()).add(new Posting(doc.docId(), termPositions)));
+        }
+
+        private void addAll(Buffer newer) {
+            docs.addAll(newer.docs);
+            newer.postings.forEach((term, list) -> postings.computeIfAbsent(term, t -> new ArrayList<>()).addAll(list));
+        }
+
+        private Iterator<TermPostings> sortedTerms() {
+            return postings.entrySet().stream()
+                    .map(entry -> new TermPostings(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue()))
+                    .sorted((a, b) -> Arrays.compareUnsigned(a.term(), b.term()))
+                    .iterator();
+        }
+    }
+
+    /**
+     * K-way merge of the segments' sorted term lists, keeping the postings of live documents only.
+     */
+    private static final class MergingTerms implements Iterator<TermPostings> {
+        private final List<TextSegment> segments;
+        private final Set<Integer> liveDocs;
+        private final PriorityQueue<int[]> heads;
+
+        private MergingTerms(List<TextSegment> segments, Set<Integer> liveDocs) {
+            this.segments = segments;
+            this.liveDocs = liveDocs;
+            this.heads = new PriorityQueue<>((a, b) -> Arrays.compareUnsigned(
+                    segments.get(a[0]).term(a[1]), segments.get(b[0]).term(b[1])));
+            for (int i = 0; i < segments.size(); i++) {
+                if (segments.get(i).termCount() > 0) {
+                    heads.add(new int[]{i, 0});
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public TermPostings next() {
+            if (heads.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            int[] first = heads.peek();
+            byte[] term = segments.get(first[0]).term(first[1]);
+            List<Posting> postings = new ArrayList<>();
+            while (!heads.isEmpty() && Arrays.equals(term, segments.get(heads.peek()[0]).term(heads.peek()[1]))) {
+                int[] head = heads.poll();
+                TextSegment segment = segments.get(head[0]);
+                segment.forEachPosting(head[1], true, (docId, positions) -> {
+                    if (liveDocs.contains(docId)) {
+                        postings.add(new Posting(docId, positions));
+                    }
+                });
+                if (++head[1] < segment.termCount()) {
+                    heads.add(head);
+                }
+            }
+            postings.sort(Comparator.comparingInt(Posting::docId));
+            List<Posting> distinct = new ArrayList<>(postings.size());
+            for (Posting posting : postings) {
+                if (distinct.isEmpty() || distinct.get(distinct.size() - 1).docId() != posting.docId()) {
+                    distinct.add(posting);
+                }
+            }
+            return new TermPostings(term, distinct);
+        }
+    }
+}
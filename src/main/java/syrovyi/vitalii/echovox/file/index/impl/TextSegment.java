@@ -0,0 +1,293 @@
+package syrovyi.vitalii.echovox.file.index.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * One immutable, memory-mapped file of the text index.
+ *
+ * <p>Layout: a header {@code magic, version, docCount, termCount, docTableOffset, termIndexOffset}
+ * (ints), then one postings list per term, then the document table, the term entries and a term index
+ * of entry offsets sorted by the terms' UTF-8 bytes. A postings list is {@code docCount} followed by
+ * {@code docIdDelta, positionCount, positionDeltas...} per document, all as unsigned varints. A
+ * document table entry is {@code docId, filename, hash}, each string an int length and UTF-8 bytes; a
+ * tombstone has hash length -1. Term lookups binary-search the term index in place; nothing but the
+ * header is read on open.
+ */
+final class TextSegment {
+    private static final int MAGIC = 0xEC05_7E17;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    final Path path;
+    final long generation;
+    private final MappedByteBuffer buffer;
+    private final int docCount;
+    private final int termCount;
+    private final int docTableOffset;
+    private final int termIndexOffset;
+
+    private TextSegment(Path path, long generation, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.generation = generation;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a text index segment: " + path);
+        }
+        this.docCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.docTableOffset = buffer.getInt(16);
+        this.termIndexOffset = buffer.getInt(20);
+        if (termIndexOffset + 4L * termCount != buffer.capacity()) {
+            throw new IOException("Truncated text index segment: " + path);
+        }
+    }
+
+    static TextSegment open(Path path, long generation) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Text index segment too large: " + path);
+            }
+            return new TextSegment(path, generation, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    byte[] term(int ordinal) {
+        int entry = buffer.getInt(termIndexOffset + 4 * ordinal);
+        byte[] term = new byte[buffer.getShort(entry)];
+        buffer.get(entry + 2, term);
+        return term;
+    }
+
+    /**
+     * @return the term's ordinal, or -1 if the segment does not contain it
+     */
+    int find(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareTerm(mid, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the postings of a term. {@code positions} is {@code null} when {@code withPositions} is off.
+     */
+    void forEachPosting(int ordinal, boolean withPositions, PostingConsumer consumer) {
+        int entry = buffer.getInt(termIndexOffset + 4 * ordinal);
+        int[] cursor = {buffer.getInt(entry + 2 + buffer.getShort(entry))};
+        int count = readVarInt(cursor);
+        int docId = 0;
+        for (int i = 0; i < count; i++) {
+            docId += readVarInt(cursor);
+            int frequency = readVarInt(cursor);
+            int[] positions = withPositions ? new int[frequency] : null;
+            int position = 0;
+            for (int j = 0; j < frequency; j++) {
+                position += readVarInt(cursor);
+                if (positions != null) {
+                    positions[j] = position;
+                }
+            }
+            consumer.accept(docId, positions);
+        }
+    }
+
+    void forEachDocument(DocumentConsumer consumer) {
+        int offset = docTableOffset;
+        for (int i = 0; i < docCount; i++) {
+            int docId = buffer.getInt(offset);
+            String filename = readString(offset + 4);
+            offset += 8 + buffer.getInt(offset + 4);
+            String hash = readString(offset);
+            offset += 4 + Math.max(buffer.getInt(offset), 0);
+            consumer.accept(new TextIndexImpl.DocRecord(docId, filename, hash));
+        }
+    }
+
+    /**
+     * Writes a segment next to {@code target} and renames it into place once complete and synced, so a
+     * crash leaves either no segment or a whole one. {@code terms} must be sorted by
+     * {@link Arrays#compareUnsigned(byte[], byte[])} and each postings list by document id.
+     */
+    static void write(Path target, List<TextIndexImpl.DocRecord> docs, Iterator<TermPostings> terms) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE));
+            out.write(new byte[HEADER_SIZE]);
+
+            int termCount = 0;
+            byte[][] termBytes = new byte[64][];
+            int[] postingOffsets = new int[64];
+            while (terms.hasNext()) {
+                TermPostings next = terms.next();
+                if (next.postings().isEmpty()) {
+                    continue;
+                }
+                if (termCount == termBytes.length) {
+                    termBytes = Arrays.copyOf(termBytes, termCount * 2);
+                    postingOffsets = Arrays.copyOf(postingOffsets, termCount * 2);
+                }
+                termBytes[termCount] = next.term();
+                postingOffsets[termCount++] = checkedSize(out);
+                writePostings(out, next.postings());
+            }
+
+            int docTableOffset = checkedSize(out);
+            for (TextIndexImpl.DocRecord doc : docs) {
+                out.writeInt(doc.docId());
+                writeString(out, doc.filename());
+                writeString(out, doc.hash());
+            }
+            int[] entryOffsets = new int[termCount];
+            for (int i = 0; i < termCount; i++) {
+                entryOffsets[i] = checkedSize(out);
+                out.writeShort(termBytes[i].length);
+                out.write(termBytes[i]);
+                out.writeInt(postingOffsets[i]);
+            }
+            int termIndexOffset = checkedSize(out);
+            for (int entryOffset : entryOffsets) {
+                out.writeInt(entryOffset);
+            }
+            checkedSize(out);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(VERSION).putInt(docs.size()).putInt(termCount)
+                    .putInt(docTableOffset).putInt(termIndexOffset)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private int compareTerm(int ordinal, byte[] term) {
+        int entry = buffer.getInt(termIndexOffset + 4 * ordinal);
+        int length = buffer.getShort(entry);
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(entry + 2 + i), term[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, term.length);
+    }
+
+    private String readString(int offset) {
+        int length = buffer.getInt(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarInt(int[] cursor) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(cursor[0]++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static void writePostings(DataOutputStream out, List<Posting> postings) throws IOException {
+        writeVarInt(out, postings.size());
+        int previousDoc = 0;
+        for (Posting posting : postings) {
+            writeVarInt(out, posting.docId() - previousDoc);
+            previousDoc = posting.docId();
+            writeVarInt(out, posting.positions().length);
+            int previousPosition = 0;
+            for (int position : posting.positions()) {
+                writeVarInt(out, position - previousPosition);
+                previousPosition = position;
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * {@link DataOutputStream#size()} saturates at {@link Integer#MAX_VALUE}, which is also the mapping limit.
+     */
+    private static int checkedSize(DataOutputStream out) throws IOException {
+        if (out.size() == Integer.MAX_VALUE) {
+            throw new IOException("Text index segment exceeds 2 GB");
+        }
+        return out.size();
+    }
+
+    record Posting(int docId, int[] positions) {
+    }
+
+    record TermPostings(byte[] term, List<Posting> postings) {
+    }
+
+    @FunctionalInterface
+    interface PostingConsumer {
+        void accept(int docId, int[] positions);
+    }
+
+    @FunctionalInterface
+    interface DocumentConsumer {
+        void accept(TextIndexImpl.DocRecord doc);
+    }
+}
@@ -5,7 +5,9 @@ import org.mapstruct.Mapping;
 import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
 import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerXmlDTO;
 import syrovyi.vitalii.echovox.file.controller.dto.response.FileResponseDTO;
+import syrovyi.vitalii.echovox.file.repository.FileMetadata;
 
+import java.time.Instant;
 import java.util.Objects;
 
 @Mapper(componentModel = "spring")
@@ -26,4 +28,12 @@ public interface FileDataMapper {
                 .content(content)
                 .build();
     }
+
+    default FileResponseDTO mapToFileMetadataDTO(String fileName, FileMetadata metadata) {
+        return FileResponseDTO.builder()
+                .fileName(fileName)
+                .size(metadata.size())
+                .lastModified(metadata.lastModified() < 0 ? null : Instant.ofEpochMilli(metadata.lastModified()))
+                .build();
+    }
 }
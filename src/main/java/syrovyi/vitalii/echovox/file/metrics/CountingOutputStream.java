@@ -0,0 +1,40 @@
+package syrovyi.vitalii.echovox.file.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes written through it, for payload size metrics of streamed conversions.
+ */
+public final class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    public CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+    }
+
+    /**
+     * The stream belongs to the caller; closing the wrapper only flushes it.
+     */
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
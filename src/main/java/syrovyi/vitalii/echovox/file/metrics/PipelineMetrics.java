@@ -0,0 +1,115 @@
+package syrovyi.vitalii.echovox.file.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the upload and read pipelines in Micrometer, exposed at {@code /actuator/prometheus}.
+ * <p>
+ * Every stage is timed under {@value #STAGE_TIMER}, tagged with the {@link PipelineStage}, the
+ * operation that ran it and its outcome: {@code success}, the lower-cased {@code ErrorCode} of a
+ * {@link ClientBackendException}, {@code io_error} for other I/O failures, or {@code error}. Error rates
+ * per stage are read from the same series. Timers and summaries are looked up once per tag
+ * combination, so timing a per-file stage costs two clock reads.
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineMetrics {
+    public static final String STAGE_TIMER = "echovox.pipeline.stage";
+    public static final String PAYLOAD_SIZE = "echovox.payload.size";
+    public static final String SEARCH_RESULTS = "echovox.search.results";
+
+    private static final String SUCCESS = "success";
+
+    private final MeterRegistry registry;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> payloadSizes = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> resultCounts = new ConcurrentHashMap<>();
+
+    public <T, E extends Exception> T record(PipelineStage stage, String operation, StageCall<T, E> call) throws E {
+        long start = System.nanoTime();
+        String outcome = SUCCESS;
+        try {
+            return call.call();
+        } catch (Exception e) {
+            outcome = outcome(e);
+            throw e;
+        } catch (Error e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            timer(stage, operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public <E extends Exception> void run(PipelineStage stage, String operation, StageRun<E> run) throws E {
+        record(stage, operation, () -> {
+            run.run();
+            return null;
+        });
+    }
+
+    /**
+     * @param kind {@code xml} for uploaded documents, {@code encoded} for what the storage codec produced
+     */
+    public void recordPayloadSize(String kind, long bytes) {
+        payloadSizes.computeIfAbsent(kind, key -> DistributionSummary.builder(PAYLOAD_SIZE)
+                        .description("Size of uploaded and encoded documents")
+                        .baseUnit("bytes")
+                        .tag("kind", kind)
+                        .register(registry))
+                .record(bytes);
+    }
+
+    public void recordResultCount(String operation, int count) {
+        resultCounts.computeIfAbsent(operation, key -> DistributionSummary.builder(SEARCH_RESULTS)
+                        .description("Number of files matched by a search")
+                        .tag("operation", operation)
+                        .register(registry))
+                .record(count);
+    }
+
+    private Timer timer(PipelineStage stage, String operation, String outcome) {
+        return timers.computeIfAbsent(new TimerKey(stage, operation, outcome), key -> Timer.builder(STAGE_TIMER)
+                .description("Time spent in one stage of the upload or read pipeline")
+                .tag("stage", stage.getTag())
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+
+    private static String outcome(Exception e) {
+        if (e instanceof ClientBackendException clientBackendException) {
+            return clientBackendException.getErrorCode().name().toLowerCase(Locale.ROOT);
+        }
+        if (e instanceof IOException || e instanceof UncheckedIOException) {
+            return "io_error";
+        }
+
+        return "error";
+    }
+
+    private record TimerKey(PipelineStage stage, String operation, String outcome) {
+    }
+
+    @FunctionalInterface
+    public interface StageCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface StageRun<E extends Exception> {
+        void run() throws E;
+    }
+}
@@ -0,0 +1,57 @@
+package syrovyi.vitalii.echovox.file.metrics;
+
+import lombok.Getter;
+
+/**
+ * Timed stages of the upload and read pipelines; the tag value is the lower-case name.
+ */
+@Getter
+public enum PipelineStage {
+    /**
+     * Validating an asynchronous upload and writing it to the spool before it is queued.
+     */
+    SPOOL("spool"),
+    /**
+     * Waiting for other uploads, replaces or deletes of the same filename to finish.
+     */
+    LOCK("lock"),
+    /**
+     * Parsing the uploaded XML and encoding it with the storage codec. Both run in one streaming pass
+     * and cannot be timed apart.
+     */
+    CONVERT("convert"),
+    /**
+     * Storing or deleting a document. For uploads this includes the {@link #CONVERT} pass it drives.
+     */
+    WRITE("write"),
+    /**
+     * Updating the file and text indexes after a write.
+     */
+    INDEX("index"),
+    /**
+     * Opening and decoding one stored document on a cache miss.
+     */
+    READ("read"),
+    /**
+     * Mapping a decoded document to its response DTO.
+     */
+    MAP("map"),
+    /**
+     * Encoding one result line of a streamed search.
+     */
+    SERIALIZE("serialize"),
+    /**
+     * Resolving the names matched by a search from the indexes.
+     */
+    SEARCH("search"),
+    /**
+     * Walking the upload directory to rebuild the file index.
+     */
+    SCAN("scan");
+
+    private final String tag;
+
+    PipelineStage(String tag) {
+        this.tag = tag;
+    }
+}
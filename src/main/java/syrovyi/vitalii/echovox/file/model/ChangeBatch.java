@@ -0,0 +1,13 @@
+package syrovyi.vitalii.echovox.file.model;
+
+import syrovyi.vitalii.echovox.file.controller.dto.response.FileChangeEventDTO;
+
+import java.util.List;
+
+/**
+ * Events read from the change feed after a given sequence. {@code reset} means events the reader asked
+ * for are no longer retained (or were published before a restart), so the reader has to re-list the
+ * files and continue after {@code latestSequence}.
+ */
+public record ChangeBatch(List<FileChangeEventDTO> events, boolean reset, long latestSequence) {
+}
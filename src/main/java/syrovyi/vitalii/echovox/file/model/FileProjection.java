@@ -0,0 +1,34 @@
+package syrovyi.vitalii.echovox.file.model;
+
+import syrovyi.vitalii.echovox.common.exception.enums.ErrorCode;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+
+import java.util.Objects;
+
+/**
+ * Parts of a search result to return. {@link #NAME} answers from the index alone; {@link #METADATA}
+ * adds size and modification time from the storage's metadata, without opening any file.
+ */
+public enum FileProjection {
+    NAME,
+    METADATA,
+    CONTENT;
+
+    /**
+     * Maps the {@code fields} request parameter: absent or {@code content} returns everything,
+     * {@code name} returns filenames only and {@code metadata} filenames with size and modification time.
+     */
+    public static FileProjection fromFields(String fields) {
+        if (Objects.isNull(fields) || fields.isBlank() || fields.equals("content") || fields.equals("name,content")) {
+            return CONTENT;
+        }
+        if (fields.equals("name")) {
+            return NAME;
+        }
+        if (fields.equals("metadata")) {
+            return METADATA;
+        }
+        throw new ClientBackendException(ErrorCode.VALIDATION_ERROR,
+                "Parameter 'fields' must be 'name', 'metadata' or 'content'. Got: " + fields);
+    }
+}
@@ -0,0 +1,30 @@
+package syrovyi.vitalii.echovox.file.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Filename-level search criteria. Unset ({@code null}) fields do not restrict the result.
+ */
+public record FileQuery(String customer, String type, LocalDate from, LocalDate to) {
+
+    public static FileQuery byCustomer(String customer) {
+        return new FileQuery(customer, null, null, null);
+    }
+
+    public static FileQuery byType(String type) {
+        return new FileQuery(null, type, null, null);
+    }
+
+    public static FileQuery byDate(LocalDate date) {
+        return new FileQuery(null, null, date, date);
+    }
+
+    public boolean isEmpty() {
+        return Objects.isNull(customer) && Objects.isNull(type) && !hasDateRange();
+    }
+
+    public boolean hasDateRange() {
+        return Objects.nonNull(from) || Objects.nonNull(to);
+    }
+}
@@ -0,0 +1,10 @@
+package syrovyi.vitalii.echovox.file.model;
+
+import java.time.LocalDate;
+
+/**
+ * Number of files and their stored bytes for one customer/type/date group. Unset ({@code null}) fields
+ * stand for all values, except that a file whose date is not a real calendar day has none.
+ */
+public record FileTotals(String customer, String type, LocalDate date, long files, long bytes) {
+}
@@ -0,0 +1,12 @@
+package syrovyi.vitalii.echovox.file.model;
+
+import java.time.LocalDate;
+
+/**
+ * Components of a {@code customer_type_date.xml} filename.
+ * <p>
+ * {@code date} is {@code null} when the date segment is well-formed but not a real calendar day
+ * (e.g. {@code 2024-13-45}); {@code rawDate} always holds the segment as written.
+ */
+public record FilenameParts(String customer, String type, String rawDate, LocalDate date) {
+}
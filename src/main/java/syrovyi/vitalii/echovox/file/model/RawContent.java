@@ -0,0 +1,9 @@
+package syrovyi.vitalii.echovox.file.model;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A stored document ready to be written to a response as is, with its HTTP validators.
+ */
+public record RawContent(Resource resource, String contentType, boolean gzipEncoded, String etag, long lastModified) {
+}
@@ -0,0 +1,10 @@
+package syrovyi.vitalii.echovox.file.model;
+
+import java.util.function.Supplier;
+
+/**
+ * A response body with its ETag, both derived from the same matches. The body is produced only on
+ * demand, so a matching If-None-Match costs no reads.
+ */
+public record Tagged<T>(String etag, Supplier<T> body) {
+}
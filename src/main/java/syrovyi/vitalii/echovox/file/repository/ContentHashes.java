@@ -0,0 +1,44 @@
+package syrovyi.vitalii.echovox.file.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 of a document's logical (uncompressed) stored bytes, as lowercase hex.
+ */
+public final class ContentHashes {
+    private static final String ALGORITHM = "SHA-256";
+
+    private ContentHashes() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is required by every Java platform", e);
+        }
+    }
+
+    public static DigestOutputStream hashing(OutputStream out, MessageDigest digest) {
+        return new DigestOutputStream(out, digest);
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String hash(InputStream content) throws IOException {
+        MessageDigest digest = newDigest();
+        try (OutputStream out = hashing(OutputStream.nullOutputStream(), digest)) {
+            content.transferTo(out);
+        }
+
+        return toHex(digest);
+    }
+}
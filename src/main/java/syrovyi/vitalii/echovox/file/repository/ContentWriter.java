@@ -0,0 +1,13 @@
+package syrovyi.vitalii.echovox.file.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Produces file content directly into the storage stream so that callers never have to
+ * materialize the whole document in memory.
+ */
+@FunctionalInterface
+public interface ContentWriter {
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,10 @@
+package syrovyi.vitalii.echovox.file.repository;
+
+/**
+ * What the storage knows about a file without opening it.
+ *
+ * @param size         stored size in bytes (after compression, if any)
+ * @param lastModified epoch millis of the last write, or {@code -1} if unknown
+ */
+public record FileMetadata(long size, long lastModified) {
+}
@@ -2,6 +2,7 @@ package syrovyi.vitalii.echovox.file.repository;
 
 import jakarta.annotation.PostConstruct;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.stream.Stream;
 
@@ -13,9 +14,33 @@ public interface FileSystemRepository {
 
     void save(String filename, byte[] content);
 
+    void save(String filename, ContentWriter writer);
+
     void delete(String filename);
 
     byte[] readFile(String filename);
 
+    /**
+     * Streams the content of a stored file; the caller closes the stream.
+     */
+    InputStream openStream(String filename);
+
+    /**
+     * The stored bytes for passthrough serving. Compressed files are inflated on the fly unless
+     * {@code keepCompressed} is set.
+     */
+    StoredContent getStoredContent(String filename, boolean keepCompressed);
+
+    /**
+     * Size and modification time of a stored file, read without opening it.
+     */
+    FileMetadata getMetadata(String filename);
+
+    /**
+     * SHA-256 (hex) of the stored content, computed when the file was written. Looking it up does not
+     * read the document body unless the file predates hashing or was changed outside the application.
+     */
+    String contentHash(String filename);
+
     Stream<Path> findFiles(String globPattern);
 }
@@ -0,0 +1,13 @@
+package syrovyi.vitalii.echovox.file.repository;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Stored bytes of one file as a re-readable {@link Resource}, so callers can serve them (or ranges of
+ * them) without decoding.
+ *
+ * @param compressed   whether {@code resource} holds gzip-compressed bytes
+ * @param lastModified epoch millis of the last write, or {@code -1} if unknown
+ */
+public record StoredContent(Resource resource, boolean compressed, long lastModified) {
+}
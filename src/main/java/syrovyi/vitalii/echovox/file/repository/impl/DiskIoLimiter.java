@@ -0,0 +1,140 @@
+package syrovyi.vitalii.echovox.file.repository.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the number of filesystem operations running at once. With virtual threads nothing else bounds
+ * how many requests can hit the disk concurrently; waiting here parks the virtual thread instead.
+ * Permits cover single operations only, never the CPU work or network I/O around them.
+ * A non-positive {@code file.io.max-concurrency} disables the limit.
+ */
+@Slf4j
+@Component
+public class DiskIoLimiter {
+    private final Semaphore permits;
+
+    public DiskIoLimiter(@Value("${file.io.max-concurrency:64}") int maxConcurrency) {
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+        log.info("Disk I/O concurrency limit: {}", maxConcurrency > 0 ? maxConcurrency : "none");
+    }
+
+    public <T> T call(IoAction<T> action) throws IOException {
+        if (permits == null) {
+            return action.run();
+        }
+        acquire();
+        try {
+            return action.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Opens a stream that takes a permit for the open and for each read, skip and close. No permit is
+     * held between calls, so a slow consumer, e.g. a client downloading the content, does not keep
+     * other requests off the disk.
+     */
+    public InputStream open(IoAction<InputStream> action) throws IOException {
+        if (permits == null) {
+            return action.run();
+        }
+
+        return new FilterInputStream(call(action)) {
+            @Override
+            public int read() throws IOException {
+                return call(super::read);
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                return call(() -> super.read(buffer, offset, length));
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                return call(() -> super.skip(n));
+            }
+
+            @Override
+            public void close() throws IOException {
+                call(() -> {
+                    super.close();
+                    return null;
+                });
+            }
+        };
+    }
+
+    /**
+     * Wraps a stream so that each write, flush and close takes a permit. Whatever produces the bytes
+     * runs without one; put a buffer in front so that writes reach the disk in large chunks.
+     */
+    public OutputStream writing(OutputStream out) {
+        if (permits == null) {
+            return out;
+        }
+
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                call(() -> {
+                    out.write(b);
+                    return null;
+                });
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                call(() -> {
+                    out.write(buffer, offset, length);
+                    return null;
+                });
+            }
+
+            @Override
+            public void flush() throws IOException {
+                call(() -> {
+                    out.flush();
+                    return null;
+                });
+            }
+
+            @Override
+            public void close() throws IOException {
+                call(() -> {
+                    out.close();
+                    return null;
+                });
+            }
+        };
+    }
+
+    public int availablePermits() {
+        return permits == null ? Integer.MAX_VALUE : permits.availablePermits();
+    }
+
+    @FunctionalInterface
+    public interface IoAction<T> {
+        T run() throws IOException;
+    }
+
+    private void acquire() throws InterruptedIOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a disk I/O permit");
+        }
+    }
+}
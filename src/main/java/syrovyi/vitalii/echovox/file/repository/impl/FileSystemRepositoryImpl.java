@@ -4,65 +4,250 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.stereotype.Repository;
 import syrovyi.vitalii.echovox.common.exception.enums.ErrorCode;
 import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.cache.ContentCache;
+import syrovyi.vitalii.echovox.file.codec.StorageCodec;
+import syrovyi.vitalii.echovox.file.repository.ContentHashes;
+import syrovyi.vitalii.echovox.file.repository.ContentWriter;
+import syrovyi.vitalii.echovox.file.repository.FileMetadata;
 import syrovyi.vitalii.echovox.file.repository.FileSystemRepository;
+import syrovyi.vitalii.echovox.file.repository.StoredContent;
+import syrovyi.vitalii.echovox.file.repository.layout.StorageLayout;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+/**
+ * Stores one file per document below {@code file.upload-dir}, placed by the configured
+ * {@link StorageLayout}. Names starting with a dot (temp files, internal state directories) are never
+ * treated as documents.
+ * <p>
+ * The content hash of each file is kept in a user-defined extended attribute written before the file
+ * is renamed into place, together with the size and modification time it belongs to, so it survives
+ * restarts and is ignored once the file is changed by other means. On file systems without extended
+ * attributes hashes are recomputed once per process.
+ */
 @Slf4j
 @Repository
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "file.storage.backend", havingValue = "files", matchIfMissing = true)
 public class FileSystemRepositoryImpl implements FileSystemRepository {
+    private static final String TEMP_PREFIX = ".upload-";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String HIDDEN_PREFIX = ".";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final String HASH_ATTRIBUTE = "echovox.sha256";
+    private static final char HASH_FIELD_SEPARATOR = ':';
+
+    private final ContentCache contentCache;
+    private final DiskIoLimiter diskIoLimiter;
+    private final StorageLayout storageLayout;
+    private final PayloadCompressor payloadCompressor;
+    private final StorageSync storageSync;
+    private final StorageCodec storageCodec;
+
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
+    private final Map<String, HashEntry> contentHashes = new ConcurrentHashMap<>();
+    private boolean hashAttributesSupported;
+
     @Value("${file.upload-dir}")
     private Path rootLocation;
 
+    @Value("${file.storage.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
     @PostConstruct
     @Override
     public void init() {
         try {
             Files.createDirectories(this.rootLocation);
-        } catch (IOException e) {
+            hashAttributesSupported = probeHashAttributes();
+            List<Path> documents = walkDocuments();
+            checkCodec(documents);
+            deleteStaleTempFiles();
+            if (migrateOnStartup) {
+                relocate(documents);
+            }
+            log.info("Storage initialized at {} using the {} layout; content hashes are {}", rootLocation.toAbsolutePath(),
+                    storageLayout.name(), hashAttributesSupported ? "kept in extended attributes" : "kept in memory only");
+        } catch (IOException | UncheckedIOException e) {
             throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not initialize storage", e);
         }
     }
 
     @Override
     public boolean exists(String filename) {
-        return Files.exists(this.rootLocation.resolve(filename));
+        return Files.exists(resolve(filename));
     }
 
     @Override
     public void save(String filename, byte[] content) {
+        save(filename, out -> out.write(content));
+    }
+
+    /**
+     * Streams the content into a temp file next to the destination and renames it into place, so
+     * readers never observe a partially written document. The temp file is synced before the rename and
+     * the directory after it, so after a crash the name points at either the old or the new content,
+     * never at a truncated file. Disk I/O permits are taken per buffered write, for the hash attribute
+     * and for the rename, so the conversion producing the content never holds one. Syncs run without a
+     * permit: under group commit they wait for the batch, and a waiting writer must not keep reads off
+     * the disk or cap how many syncs one commit can batch.
+     */
+    @Override
+    public void save(String filename, ContentWriter writer) {
+        Path destinationFile = resolve(filename);
+        Path tempFile = destinationFile.resolveSibling(TEMP_PREFIX + UUID.randomUUID() + TEMP_SUFFIX);
+        MessageDigest digest = ContentHashes.newDigest();
+        boolean moved = false;
         try {
-            Path destinationFile = this.rootLocation.resolve(filename);
-            Files.write(destinationFile, content);
+            OutputStream file = diskIoLimiter.call(() -> {
+                ensureDirectory(destinationFile.getParent());
+                return Files.newOutputStream(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            });
+            try (OutputStream out = ContentHashes.hashing(payloadCompressor.compressing(
+                    new BufferedOutputStream(diskIoLimiter.writing(file), WRITE_BUFFER_SIZE)), digest)) {
+                writer.writeTo(out);
+            }
+            diskIoLimiter.call(() -> {
+                recordHash(filename, tempFile, digest);
+                return null;
+            });
+            storageSync.syncFile(tempFile);
+            diskIoLimiter.call(() -> Files.move(tempFile, destinationFile,
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING));
+            moved = true;
+            storageSync.syncDirectory(destinationFile.getParent());
         } catch (IOException e) {
             throw new ClientBackendException(ErrorCode.IO_ERROR, "Failed to store file " + filename, e);
+        } finally {
+            if (!moved) {
+                deleteTempFile(tempFile);
+            }
+            contentCache.invalidate(filename);
         }
     }
 
     @Override
     public void delete(String filename) {
         try {
-            Path file = rootLocation.resolve(filename);
-            Files.deleteIfExists(file);
+            Path file = resolve(filename);
+            if (diskIoLimiter.call(() -> Files.deleteIfExists(file))) {
+                storageSync.syncDirectory(file.getParent());
+            }
         } catch (IOException e) {
             throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not delete file: " + filename, e);
+        } finally {
+            contentHashes.remove(filename);
+            contentCache.invalidate(filename);
         }
     }
 
     @Override
     public byte[] readFile(String filename) {
+        try (InputStream in = openStream(filename)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not read file: " + filename, e);
+        }
+    }
+
+    @Override
+    public InputStream openStream(String filename) {
         try {
-            Path file = rootLocation.resolve(filename);
-            return Files.readAllBytes(file);
+            Path file = resolve(filename);
+            return payloadCompressor.decompressing(diskIoLimiter.open(() -> Files.newInputStream(file)));
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not read file: " + filename, e);
+        }
+    }
+
+    @Override
+    public StoredContent getStoredContent(String filename, boolean keepCompressed) {
+        try {
+            Path file = resolve(filename);
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            FileSystemResource stored = new FileSystemResource(file) {
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    return diskIoLimiter.open(super::getInputStream);
+                }
+            };
+
+            return payloadCompressor.toStoredContent(stored, attributes.lastModifiedTime().toMillis(), keepCompressed);
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not read file: " + filename, e);
+        }
+    }
+
+    @Override
+    public FileMetadata getMetadata(String filename) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(filename), BasicFileAttributes.class);
+
+            return new FileMetadata(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not read file: " + filename, e);
+        }
+    }
+
+    /**
+     * Costs one {@code stat} while the cached hash still matches the file; otherwise the extended
+     * attribute is consulted before falling back to hashing the content.
+     */
+    @Override
+    public String contentHash(String filename) {
+        try {
+            Path file = resolve(filename);
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            String version = version(attributes);
+
+            HashEntry cached = contentHashes.get(filename);
+            if (cached != null && cached.version().equals(version)) {
+                return cached.hash();
+            }
+            String hash = readHashAttribute(file, attributes);
+            if (hash == null) {
+                try (InputStream in = openStream(filename)) {
+                    hash = ContentHashes.hash(in);
+                }
+                writeHashAttribute(file, hash, attributes);
+            }
+            contentHashes.put(filename, new HashEntry(hash, version));
+
+            return hash;
+        } catch (NoSuchFileException e) {
+            throw new ClientBackendException(ErrorCode.NOT_FOUND, "File not found: " + filename, e);
         } catch (IOException e) {
             throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not read file: " + filename, e);
         }
@@ -71,7 +256,107 @@ public class FileSystemRepositoryImpl implements FileSystemRepository {
     @Override
     public Stream<Path> findFiles(String globPattern) {
         try {
-            DirectoryStream<Path> dirStream = Files.newDirectoryStream(this.rootLocation, globPattern);
+            Stream<Path> directories = storageLayout.searchDirectories(this.rootLocation, globPattern);
+
+            return directories
+                    .flatMap(directory -> listDirectory(directory, globPattern))
+                    .onClose(directories::close);
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Failed to find files with pattern: " + globPattern, e);
+        }
+    }
+
+    private void recordHash(String filename, Path tempFile, MessageDigest digest) throws IOException {
+        String hash = ContentHashes.toHex(digest);
+        BasicFileAttributes attributes = Files.readAttributes(tempFile, BasicFileAttributes.class);
+        writeHashAttribute(tempFile, hash, attributes);
+        contentHashes.put(filename, new HashEntry(hash, version(attributes)));
+    }
+
+    /**
+     * Identifies one physical version of a file. Every save renames a fresh temp file into place, so
+     * the file key (inode) changes even when size and modification time do not.
+     */
+    private static String version(BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) + "-" + attributes.size()
+                + "-" + Objects.hashCode(attributes.fileKey());
+    }
+
+    private String readHashAttribute(Path file, BasicFileAttributes attributes) {
+        UserDefinedFileAttributeView view = hashAttributeView(file);
+        if (view == null) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(view.size(HASH_ATTRIBUTE));
+            view.read(HASH_ATTRIBUTE, buffer);
+            String[] fields = new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII)
+                    .split(String.valueOf(HASH_FIELD_SEPARATOR));
+
+            return fields.length == 3 && fields[1].equals(String.valueOf(attributes.size()))
+                    && fields[2].equals(String.valueOf(attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS)))
+                    ? fields[0] : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Setting an extended attribute changes ctime only, so the recorded modification time stays valid.
+     * Support was established on startup; a failure here, such as a full attribute block or a file
+     * replaced meanwhile, costs just this one hash.
+     */
+    private void writeHashAttribute(Path file, String hash, BasicFileAttributes attributes) {
+        UserDefinedFileAttributeView view = hashAttributeView(file);
+        if (view == null) {
+            return;
+        }
+        String value = hash + HASH_FIELD_SEPARATOR + attributes.size()
+                + HASH_FIELD_SEPARATOR + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        try {
+            view.write(HASH_ATTRIBUTE, StandardCharsets.US_ASCII.encode(value));
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Could not record the content hash of {}", file, e);
+        }
+    }
+
+    /**
+     * Extended attributes are used only if the file store advertises them and a probe file under the
+     * root accepts one; file systems differ in how they report the lack of support.
+     */
+    private boolean probeHashAttributes() {
+        try {
+            if (!Files.getFileStore(rootLocation).supportsFileAttributeView(UserDefinedFileAttributeView.class)) {
+                return false;
+            }
+            Path probe = rootLocation.resolve(TEMP_PREFIX + UUID.randomUUID() + TEMP_SUFFIX);
+            try {
+                UserDefinedFileAttributeView view = Files.getFileAttributeView(Files.createFile(probe), UserDefinedFileAttributeView.class);
+                if (view == null) {
+                    return false;
+                }
+                view.write(HASH_ATTRIBUTE, ByteBuffer.wrap(new byte[]{0}));
+                return true;
+            } finally {
+                Files.deleteIfExists(probe);
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Extended attributes are not usable under {}", rootLocation, e);
+            return false;
+        }
+    }
+
+    private UserDefinedFileAttributeView hashAttributeView(Path file) {
+        return hashAttributesSupported ? Files.getFileAttributeView(file, UserDefinedFileAttributeView.class) : null;
+    }
+
+    private Path resolve(String filename) {
+        return storageLayout.resolve(this.rootLocation, filename);
+    }
+
+    private Stream<Path> listDirectory(Path directory, String globPattern) {
+        try {
+            DirectoryStream<Path> dirStream = Files.newDirectoryStream(directory, globPattern);
 
             return StreamSupport.stream(dirStream.spliterator(), false)
                     .filter(path -> !Files.isDirectory(path))
@@ -79,7 +364,121 @@ public class FileSystemRepositoryImpl implements FileSystemRepository {
                         try { dirStream.close(); } catch (IOException e) { log.error("Error closing stream", e); }
                     });
         } catch (IOException e) {
-            throw new ClientBackendException(ErrorCode.IO_ERROR, "Failed to find files with pattern: " + globPattern, e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Directories created for a layout are synced up to the root once per process, so their entries
+     * are as durable as the files placed in them.
+     */
+    private void ensureDirectory(Path directory) throws IOException {
+        if (!knownDirectories.contains(directory)) {
+            Files.createDirectories(directory);
+            if (storageSync.isEnabled()) {
+                for (Path current = directory; current != null && current.startsWith(rootLocation); current = current.getParent()) {
+                    storageSync.syncDirectory(current);
+                    if (current.equals(rootLocation)) {
+                        break;
+                    }
+                }
+            }
+            knownDirectories.add(directory);
+        }
+    }
+
+    /**
+     * Refuses to start over documents written with another codec: they would be invisible to listing,
+     * search and reads under the active one.
+     */
+    private void checkCodec(List<Path> documents) {
+        List<String> foreign = documents.stream()
+                .map(document -> document.getFileName().toString())
+                .filter(storageCodec::isForeign)
+                .toList();
+        if (!foreign.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "%d stored documents (e.g. %s) were written with another codec than file.storage.codec=%s; "
+                            + "switch back to their codec or move them out of %s",
+                    foreign.size(), foreign.getFirst(), storageCodec.name(), rootLocation));
         }
     }
+
+    /**
+     * Returns every file below the root, skipping hidden files and directories.
+     */
+    private List<Path> walkDocuments() throws IOException {
+        List<Path> documents = new ArrayList<>();
+
+        Files.walkFileTree(this.rootLocation, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return !dir.equals(rootLocation) && isHidden(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    documents.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return documents;
+    }
+
+    /**
+     * Moves documents that are not where the current layout expects them, e.g. after switching an
+     * existing flat directory to a sharded layout (or back).
+     */
+    private void relocate(List<Path> documents) throws IOException {
+        int moved = 0;
+
+        for (Path current : documents) {
+            String filename = current.getFileName().toString();
+            if (isHidden(current)) {
+                continue;
+            }
+            Path target = resolve(filename);
+            if (!target.equals(current)) {
+                ensureDirectory(target.getParent());
+                Files.move(current, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                moved++;
+            }
+        }
+        if (moved > 0) {
+            log.info("Moved {} files into the {} layout", moved, storageLayout.name());
+        }
+    }
+
+    private void deleteStaleTempFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(this.rootLocation)) {
+            for (Path stale : files.filter(this::isStaleTempFile).toList()) {
+                log.info("Removing incomplete upload {}", stale);
+                Files.deleteIfExists(stale);
+            }
+        }
+    }
+
+    private boolean isStaleTempFile(Path path) {
+        String name = path.getFileName().toString();
+
+        return name.startsWith(TEMP_PREFIX) && name.endsWith(TEMP_SUFFIX);
+    }
+
+    private static boolean isHidden(Path path) {
+        return path.getFileName().toString().startsWith(HIDDEN_PREFIX);
+    }
+
+    private void deleteTempFile(Path tempFile) {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("Could not remove temp file {}", tempFile, e);
+        }
+    }
+
+    private record HashEntry(String hash, String version) {
+    }
 }
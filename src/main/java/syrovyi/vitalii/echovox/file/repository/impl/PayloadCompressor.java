@@ -0,0 +1,171 @@
+package syrovyi.vitalii.echovox.file.repository.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.file.repository.StoredContent;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compresses stored payloads larger than {@code file.storage.compression.threshold-bytes}.
+ * Compressed files are recognised by the gzip magic bytes, which no storage codec starts with, so
+ * uncompressed files written before compression was enabled (or below the threshold) read unchanged.
+ */
+@Slf4j
+@Component
+public class PayloadCompressor {
+    private static final int GZIP_MAGIC_FIRST = 0x1f;
+    private static final int GZIP_MAGIC_SECOND = 0x8b;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final boolean enabled;
+    private final int thresholdBytes;
+    private final int level;
+
+    public PayloadCompressor(@Value("${file.storage.compression.enabled:false}") boolean enabled,
+                             @Value("${file.storage.compression.threshold-bytes:4096}") int thresholdBytes,
+                             @Value("${file.storage.compression.level:1}") int level) {
+        this.enabled = enabled;
+        this.thresholdBytes = thresholdBytes;
+        this.level = level;
+        if (enabled) {
+            log.info("Payloads above {} bytes are stored gzip-compressed (level {})", thresholdBytes, level);
+        }
+    }
+
+    /**
+     * Wraps {@code out} so that content is written as is while it stays within the threshold and
+     * compressed once it grows past it. Closing the returned stream closes {@code out}.
+     */
+    public OutputStream compressing(OutputStream out) {
+        return enabled ? new ThresholdOutputStream(out) : out;
+    }
+
+    /**
+     * Returns the logical content of a stored payload, inflating it on the fly when it is compressed.
+     */
+    public InputStream decompressing(InputStream in) throws IOException {
+        InputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        try {
+            buffered.mark(2);
+            boolean compressed = buffered.read() == GZIP_MAGIC_FIRST && buffered.read() == GZIP_MAGIC_SECOND;
+            buffered.reset();
+
+            return compressed ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+        } catch (IOException e) {
+            buffered.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Wraps the stored bytes of a file for passthrough serving. Compressed bytes are presented as their
+     * inflated content unless {@code keepCompressed} is set; the inflated length comes from the gzip
+     * trailer, so ranges can be served without inflating the whole payload first.
+     */
+    public StoredContent toStoredContent(Resource stored, long lastModified, boolean keepCompressed)
+            throws IOException {
+        boolean compressed;
+        try (InputStream in = stored.getInputStream()) {
+            compressed = in.read() == GZIP_MAGIC_FIRST && in.read() == GZIP_MAGIC_SECOND;
+        }
+        if (compressed && !keepCompressed) {
+            return new StoredContent(new InflatedResource(stored), false, lastModified);
+        }
+
+        return new StoredContent(stored, compressed, lastModified);
+    }
+
+    private final class InflatedResource extends AbstractResource {
+        private final Resource compressed;
+
+        private InflatedResource(Resource compressed) {
+            this.compressed = compressed;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return decompressing(compressed.getInputStream());
+        }
+
+        /**
+         * ISIZE, the last four bytes of a gzip member: the inflated length modulo 2^32, which covers
+         * every payload the upload limits allow.
+         */
+        @Override
+        public long contentLength() throws IOException {
+            byte[] trailer;
+            try (InputStream in = compressed.getInputStream()) {
+                in.skipNBytes(compressed.contentLength() - Integer.BYTES);
+                trailer = in.readNBytes(Integer.BYTES);
+            }
+
+            return Integer.toUnsignedLong(ByteBuffer.wrap(trailer).order(ByteOrder.LITTLE_ENDIAN).getInt());
+        }
+
+        @Override
+        public boolean exists() {
+            return compressed.exists();
+        }
+
+        @Override
+        public String getDescription() {
+            return "inflated " + compressed.getDescription();
+        }
+    }
+
+    private final class ThresholdOutputStream extends OutputStream {
+        private final OutputStream target;
+        private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private OutputStream gzip;
+
+        private ThresholdOutputStream(OutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (gzip != null) {
+                gzip.write(b, off, len);
+                return;
+            }
+            pending.write(b, off, len);
+            if (pending.size() > thresholdBytes) {
+                gzip = new GZIPOutputStream(target, BUFFER_SIZE) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+                pending.writeTo(gzip);
+                pending = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (gzip != null) {
+                gzip.close();
+            } else {
+                try (target) {
+                    pending.writeTo(target);
+                }
+            }
+        }
+    }
+}
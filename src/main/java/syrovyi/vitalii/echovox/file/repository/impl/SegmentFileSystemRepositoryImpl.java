@@ -0,0 +1,760 @@
+package syrovyi.vitalii.echovox.file.repository.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.stereotype.Repository;
+import syrovyi.vitalii.echovox.common.exception.enums.ErrorCode;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.cache.ContentCache;
+import syrovyi.vitalii.echovox.file.codec.StorageCodec;
+import syrovyi.vitalii.echovox.file.repository.ContentHashes;
+import syrovyi.vitalii.echovox.file.repository.ContentWriter;
+import syrovyi.vitalii.echovox.file.repository.FileMetadata;
+import syrovyi.vitalii.echovox.file.repository.FileSystemRepository;
+import syrovyi.vitalii.echovox.file.repository.StoredContent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Stores documents as records appended to large segment files under {@code <upload-dir>/.segments}
+ * instead of one file per document. An in-memory index maps each name to its latest record. Sealed
+ * segments are memory-mapped once and read straight from the mapping; records in the active segment are
+ * read with a positioned read, since a mapping would have to be redone as the segment grows.
+ *
+ * <p>Record layout: {@code magic:int, type:byte, nameLength:int, contentLength:int, crc32:int,
+ * writtenAt:long, name, content}; the checksum covers type, write time, name and content. The write time
+ * is the document's last-modified time and is kept when compaction moves the record. Replacing a document appends a new record and
+ * deleting one appends a tombstone. Sealed segments whose dead bytes exceed
+ * {@code file.storage.segment.compaction-threshold} are compacted in the background by re-appending
+ * their live records and deleting the segment. On startup all segments are replayed in order. A corrupt
+ * record is skipped by resynchronizing on the next valid record, so one bad record never takes the
+ * records after it along; only the active segment's invalid tail, which a crash can leave, is
+ * truncated. Sealed segments with corrupt bytes are reported as errors, kept unchanged and never
+ * compacted, so their content remains available for inspection.
+ *
+ * <p>Content hashes are computed while a record is written and kept next to the index; records replayed
+ * on startup are hashed lazily on first request.
+ *
+ * <p>A write returns once its segment is synced per {@link StorageSync}; with group commit, concurrent
+ * appends to the active segment share one fsync.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "file.storage.backend", havingValue = "segments")
+public class SegmentFileSystemRepositoryImpl implements FileSystemRepository {
+    private static final String SEGMENT_DIRECTORY = ".segments";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAGIC = 0xEC05E601;
+    private static final int MAGIC_WITHOUT_WRITE_TIME = 0xEC05E600;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER_SIZE = 25;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ContentCache contentCache;
+    private final DiskIoLimiter diskIoLimiter;
+    private final PayloadCompressor payloadCompressor;
+    private final StorageSync storageSync;
+    private final StorageCodec storageCodec;
+    private final Path rootLocation;
+    private final long maxSegmentSize;
+    private final double compactionThreshold;
+
+    private final Map<String, RecordLocation> index = new ConcurrentHashMap<>();
+    private final Map<RecordLocation, String> contentHashes = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Set<Integer> queuedCompactions = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("segment-compactor").daemon().factory());
+
+    private Path segmentDirectory;
+    private volatile Segment active;
+
+    public SegmentFileSystemRepositoryImpl(ContentCache contentCache,
+                                           DiskIoLimiter diskIoLimiter,
+                                           PayloadCompressor payloadCompressor,
+                                           StorageSync storageSync,
+                                           StorageCodec storageCodec,
+                                           @Value("${file.upload-dir}") Path rootLocation,
+                                           @Value("${file.storage.segment.max-size-bytes:268435456}") long maxSegmentSize,
+                                           @Value("${file.storage.segment.compaction-threshold:0.5}") double compactionThreshold) {
+        this.contentCache = contentCache;
+        this.diskIoLimiter = diskIoLimiter;
+        this.payloadCompressor = payloadCompressor;
+        this.storageSync = storageSync;
+        this.storageCodec = storageCodec;
+        this.rootLocation = rootLocation;
+        this.maxSegmentSize = Math.min(maxSegmentSize, Integer.MAX_VALUE);
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @PostConstruct
+    @Override
+    public void init() {
+        try {
+            segmentDirectory = rootLocation.resolve(SEGMENT_DIRECTORY);
+            Files.createDirectories(segmentDirectory);
+            openSegments();
+            for (Segment segment : segments.values()) {
+                boolean tail = segment == segments.lastEntry().getValue();
+                if (!tail) {
+                    segment.seal();
+                }
+                recover(segment, tail);
+            }
+            checkCodec();
+            if (segments.isEmpty()) {
+                active = createSegment(1);
+                storageSync.syncDirectory(segmentDirectory);
+                storageSync.syncDirectory(rootLocation);
+            } else {
+                active = segments.lastEntry().getValue();
+            }
+            segments.values().forEach(this::compactIfNeeded);
+            log.info("Segment store opened at {}: {} documents in {} segments",
+                    segmentDirectory.toAbsolutePath(), index.size(), segments.size());
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not initialize storage", e);
+        }
+    }
+
+    /**
+     * Refuses to start over documents written with another codec: they would be invisible to listing,
+     * search and reads under the active one.
+     */
+    private void checkCodec() {
+        List<String> foreign = index.keySet().stream().filter(storageCodec::isForeign).toList();
+        if (!foreign.isEmpty()) {
+            close();
+            throw new IllegalStateException(String.format(
+                    "%d stored documents (e.g. %s) were written with another codec than file.storage.codec=%s; "
+                            + "switch back to their codec",
+                    foreign.size(), foreign.getFirst(), storageCodec.name()));
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        compactor.shutdown();
+        for (Segment segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Could not close segment {}", segment.path, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String filename) {
+        return index.containsKey(filename);
+    }
+
+    @Override
+    public void save(String filename, byte[] content) {
+        save(filename, out -> out.write(content));
+    }
+
+    /**
+     * Records are written in one piece, so the content is buffered in memory first. The segment store
+     * is meant for many small documents; large payloads are better served by the {@code files} backend.
+     */
+    @Override
+    public void save(String filename, ContentWriter writer) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        MessageDigest digest = ContentHashes.newDigest();
+        try {
+            try (OutputStream out = ContentHashes.hashing(payloadCompressor.compressing(buffer), digest)) {
+                writer.writeTo(out);
+            }
+            String hash = ContentHashes.toHex(digest);
+            RecordLocation location = diskIoLimiter.call(() -> append(PUT, filename, buffer.toByteArray(), hash, System.currentTimeMillis()));
+            syncSegment(location.segment());
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Failed to store file " + filename, e);
+        } finally {
+            contentCache.invalidate(filename);
+        }
+    }
+
+    @Override
+    public void delete(String filename) {
+        try {
+            RecordLocation tombstone = diskIoLimiter.call(() -> {
+                appendLock.lock();
+                try {
+                    return index.containsKey(filename) ? append(DELETE, filename, EMPTY, null, System.currentTimeMillis()) : null;
+                } finally {
+                    appendLock.unlock();
+                }
+            });
+            if (tombstone != null) {
+                syncSegment(tombstone.segment());
+            }
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not delete file: " + filename, e);
+        } finally {
+            contentCache.invalidate(filename);
+        }
+    }
+
+    @Override
+    public byte[] readFile(String filename) {
+        try (InputStream in = openStream(filename)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not read file: " + filename, e);
+        }
+    }
+
+    @Override
+    public InputStream openStream(String filename) {
+        try {
+            RecordLocation location = index.get(filename);
+            if (location == null) {
+                throw new NoSuchFileException(filename);
+            }
+            ByteBuffer content = content(location);
+
+            return payloadCompressor.decompressing(diskIoLimiter.open(() -> new ByteBufferInputStream(content)));
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not read file: " + filename, e);
+        }
+    }
+
+    @Override
+    public StoredContent getStoredContent(String filename, boolean keepCompressed) {
+        try {
+            RecordLocation location = index.get(filename);
+            if (location == null) {
+                throw new NoSuchFileException(filename);
+            }
+            ByteBuffer content = content(location);
+
+            return payloadCompressor.toStoredContent(new MappedRecordResource(filename, content), location.writtenAt(), keepCompressed);
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not read file: " + filename, e);
+        }
+    }
+
+    /**
+     * Answered from the index: the record's stored content length and write time.
+     */
+    @Override
+    public FileMetadata getMetadata(String filename) {
+        try {
+            RecordLocation location = index.get(filename);
+            if (location == null) {
+                throw new NoSuchFileException(filename);
+            }
+
+            return new FileMetadata(location.contentLength(), location.writtenAt());
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not read file: " + filename, e);
+        }
+    }
+
+    @Override
+    public String contentHash(String filename) {
+        try {
+            RecordLocation location = index.get(filename);
+            if (location == null) {
+                throw new NoSuchFileException(filename);
+            }
+            String hash = contentHashes.get(location);
+            if (hash != null) {
+                return hash;
+            }
+            ByteBuffer content = content(location);
+            try (InputStream in = payloadCompressor.decompressing(diskIoLimiter.open(() -> new ByteBufferInputStream(content)))) {
+                hash = ContentHashes.hash(in);
+            }
+            appendLock.lock();
+            try {
+                if (location.equals(index.get(filename))) {
+                    contentHashes.put(location, hash);
+                }
+            } finally {
+                appendLock.unlock();
+            }
+
+            return hash;
+        } catch (NoSuchFileException e) {
+            throw new ClientBackendException(ErrorCode.NOT_FOUND, "File not found: " + filename, e);
+        } catch (IOException e) {
+            throw new ClientBackendException(ErrorCode.IO_ERROR, "Could not read file: " + filename, e);
+        }
+    }
+
+    /**
+     * Matches the glob against the indexed names. The returned paths are logical: they carry the
+     * document name but do not exist on disk.
+     */
+    @Override
+    public Stream<Path> findFiles(String globPattern) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + globPattern);
+
+        return index.keySet().stream()
+                .map(rootLocation::resolve)
+                .filter(path -> matcher.matches(path.getFileName()));
+    }
+
+    /**
+     * The record's stored content: a slice of the mapping for a sealed segment, otherwise a copy read
+     * under a disk permit. A segment sealed and compacted away while it is read is served from its
+     * mapping, which outlives the file.
+     */
+    private ByteBuffer content(RecordLocation location) throws IOException {
+        Segment segment = location.segment();
+        MappedByteBuffer sealed = segment.mapped;
+        if (sealed == null) {
+            try {
+                return diskIoLimiter.call(() -> segment.read(location.contentOffset(), location.contentLength()));
+            } catch (IOException e) {
+                sealed = segment.mapped;
+                if (sealed == null) {
+                    throw e;
+                }
+            }
+        }
+
+        return sealed.slice(location.contentOffset(), location.contentLength());
+    }
+
+    private RecordLocation append(byte type, String filename, byte[] content, String hash, long writtenAt) throws IOException {
+        byte[] name = filename.getBytes(StandardCharsets.UTF_8);
+        long recordLength = (long) HEADER_SIZE + name.length + content.length;
+        if (recordLength > Integer.MAX_VALUE) {
+            throw new IOException("Record for " + filename + " exceeds the maximum segment size");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .put(type)
+                .putInt(name.length)
+                .putInt(content.length)
+                .putInt(checksum(type, writtenAt, ByteBuffer.wrap(name), ByteBuffer.wrap(content)))
+                .putLong(writtenAt)
+                .flip();
+        ByteBuffer[] record = {header, ByteBuffer.wrap(name), ByteBuffer.wrap(content)};
+
+        appendLock.lock();
+        try {
+            if (active.size > 0 && active.size + recordLength > maxSegmentSize) {
+                roll();
+            }
+            Segment segment = active;
+            long position = segment.size;
+            FileChannel channel = segment.channel().position(position);
+            for (long remaining = recordLength; remaining > 0; ) {
+                remaining -= channel.write(record);
+            }
+            segment.size = position + recordLength;
+
+            RecordLocation location = new RecordLocation(segment, position, name.length, content.length, writtenAt);
+            apply(type, filename, location);
+            if (hash != null) {
+                contentHashes.put(location, hash);
+            }
+
+            return location;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void apply(byte type, String filename, RecordLocation location) {
+        RecordLocation previous;
+        if (type == PUT) {
+            location.segment().liveBytes.addAndGet(location.length());
+            previous = index.put(filename, location);
+        } else {
+            previous = index.remove(filename);
+        }
+        if (previous != null) {
+            contentHashes.remove(previous);
+            previous.segment().liveBytes.addAndGet(-previous.length());
+            compactIfNeeded(previous.segment());
+        }
+    }
+
+    private void roll() throws IOException {
+        Segment sealed = active;
+        sealed.seal();
+        active = createSegment(sealed.id + 1);
+        storageSync.syncDirectory(segmentDirectory);
+        compactIfNeeded(sealed);
+    }
+
+    /**
+     * A segment compacted away in the meantime needs no sync: compaction syncs the records it carries
+     * over before deleting it.
+     */
+    private void syncSegment(Segment segment) throws IOException {
+        try {
+            storageSync.syncFile(segment.path);
+        } catch (NoSuchFileException e) {
+            log.debug("Segment {} was compacted before it was synced", segment.path.getFileName());
+        }
+    }
+
+    private void compactIfNeeded(Segment segment) {
+        if (active == null || segment == active || segment.size == 0 || segment.damaged) {
+            return;
+        }
+        long deadBytes = segment.size - segment.liveBytes.get();
+        if (deadBytes > compactionThreshold * segment.size && queuedCompactions.add(segment.id)) {
+            compactor.execute(() -> compact(segment));
+        }
+    }
+
+    /**
+     * Re-appends the records of {@code segment} that are still current, then drops the segment. Readers
+     * holding an old location keep reading the segment's mapping, which stays valid after the file is
+     * deleted. Tombstones are carried forward while an older segment could still hold the deleted record.
+     * The segments receiving the records are synced before the old one is deleted.
+     */
+    private void compact(Segment segment) {
+        try {
+            MappedByteBuffer buffer = segment.mapped;
+            long position = 0;
+            int carried = 0;
+            Set<Segment> targets = new LinkedHashSet<>();
+            while (position < segment.size) {
+                RecordLocation location = readRecord(segment, buffer, position);
+                if (location == null) {
+                    throw new IOException("Corrupt record at offset " + position);
+                }
+                String filename = location.name(buffer);
+                byte type = buffer.get((int) position + 4);
+
+                appendLock.lock();
+                try {
+                    if (type == PUT && location.equals(index.get(filename))) {
+                        byte[] content = new byte[location.contentLength()];
+                        buffer.get(location.contentOffset(), content);
+                        targets.add(append(PUT, filename, content, contentHashes.get(location), location.writtenAt()).segment());
+                        carried++;
+                    } else if (type == DELETE && !index.containsKey(filename) && segments.firstKey() < segment.id) {
+                        targets.add(append(DELETE, filename, EMPTY, null, location.writtenAt()).segment());
+                    }
+                } finally {
+                    appendLock.unlock();
+                }
+                position = location.end();
+            }
+            for (Segment target : targets) {
+                syncSegment(target);
+            }
+            segments.remove(segment.id);
+            segment.close();
+            Files.deleteIfExists(segment.path);
+            storageSync.syncDirectory(segmentDirectory);
+            log.info("Compacted segment {}: {} live records carried over", segment.path.getFileName(), carried);
+        } catch (IOException e) {
+            log.error("Compaction of segment {} failed", segment.path, e);
+        } finally {
+            queuedCompactions.remove(segment.id);
+        }
+    }
+
+    /**
+     * Replays a segment into the index. A record that does not validate is skipped up to the next valid
+     * record. Invalid bytes at the end are a torn write when {@code tail} is set, i.e. in the segment
+     * that was being appended to, and are cut off; anywhere else they can only be damage, which is logged
+     * and left in place.
+     */
+    private void recover(Segment segment, boolean tail) throws IOException {
+        MappedByteBuffer buffer = tail ? segment.map() : segment.mapped;
+        if (segment.size >= Integer.BYTES && buffer.getInt(0) == MAGIC_WITHOUT_WRITE_TIME) {
+            close();
+            throw new IllegalStateException("Segment " + segment.path + " uses the record layout without write times;"
+                    + " export its documents with the previous version before upgrading");
+        }
+        long position = 0;
+        while (position < segment.size) {
+            RecordLocation location = readRecord(segment, buffer, position);
+            if (location == null) {
+                location = nextValidRecord(segment, buffer, position + 1);
+                if (location == null) {
+                    break;
+                }
+                segment.damaged = true;
+                log.error("Segment {} has {} bytes of corrupt records at offset {}; resuming at offset {}",
+                        segment.path.getFileName(), location.position() - position, position, location.position());
+            }
+            apply(buffer.get((int) location.position() + 4), location.name(buffer), location);
+            position = location.end();
+        }
+        if (position == segment.size) {
+            return;
+        }
+        if (tail) {
+            log.warn("Truncating segment {} at offset {}: {} bytes of incomplete or corrupt records",
+                    segment.path.getFileName(), position, segment.size - position);
+            segment.channel().truncate(position);
+            segment.size = position;
+        } else {
+            segment.damaged = true;
+            log.error("Sealed segment {} ends with {} bytes of corrupt records at offset {}; left in place",
+                    segment.path.getFileName(), segment.size - position, position);
+        }
+    }
+
+    /**
+     * The first valid record starting at or after {@code position}, or {@code null} if there is none.
+     */
+    private static RecordLocation nextValidRecord(Segment segment, MappedByteBuffer buffer, long position) {
+        for (long candidate = position; candidate + HEADER_SIZE <= segment.size; candidate++) {
+            if (buffer.getInt((int) candidate) == MAGIC) {
+                RecordLocation location = readRecord(segment, buffer, candidate);
+                if (location != null) {
+                    return location;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Validates the record at {@code position}; returns {@code null} when it is torn or corrupt.
+     */
+    private static RecordLocation readRecord(Segment segment, MappedByteBuffer buffer, long position) {
+        if (position + HEADER_SIZE > segment.size) {
+            return null;
+        }
+        int offset = (int) position;
+        byte type = buffer.get(offset + 4);
+        int nameLength = buffer.getInt(offset + 5);
+        int contentLength = buffer.getInt(offset + 9);
+        if (buffer.getInt(offset) != MAGIC || (type != PUT && type != DELETE) || nameLength <= 0 || contentLength < 0
+                || position + HEADER_SIZE + nameLength + (long) contentLength > segment.size) {
+            return null;
+        }
+        ByteBuffer name = buffer.slice(offset + HEADER_SIZE, nameLength);
+        ByteBuffer content = buffer.slice(offset + HEADER_SIZE + nameLength, contentLength);
+        long writtenAt = buffer.getLong(offset + 17);
+        if (checksum(type, writtenAt, name, content) != buffer.getInt(offset + 13)) {
+            return null;
+        }
+
+        return new RecordLocation(segment, position, nameLength, contentLength, writtenAt);
+    }
+
+    private static int checksum(byte type, long writtenAt, ByteBuffer name, ByteBuffer content) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, writtenAt));
+        crc.update(name.duplicate());
+        crc.update(content.duplicate());
+
+        return (int) crc.getValue();
+    }
+
+    private void openSegments() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(segmentDirectory)) {
+            files = stream.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            segments.put(id, new Segment(id, file, false));
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Segment segment = new Segment(id, segmentDirectory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX)), true);
+        segments.put(id, segment);
+
+        return segment;
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final AtomicLong liveBytes = new AtomicLong();
+        private volatile boolean damaged;
+        private volatile FileChannel channel;
+        private volatile long size;
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(int id, Path path, boolean create) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = create
+                    ? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+
+        /**
+         * File channels close themselves when a thread is interrupted during I/O, e.g. a cancelled
+         * request. The segment reopens its channel instead of failing every later operation.
+         */
+        private synchronized FileChannel channel() throws IOException {
+            if (!channel.isOpen()) {
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+
+            return channel;
+        }
+
+        private synchronized void close() throws IOException {
+            channel.close();
+        }
+
+        /**
+         * A read-only mapping of the segment as it is now.
+         */
+        private MappedByteBuffer map() throws IOException {
+            return channel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        /**
+         * Called once no more records will be appended; the segment is read from its mapping from then on.
+         */
+        private void seal() throws IOException {
+            mapped = map();
+        }
+
+        private ByteBuffer read(long position, int length) throws IOException {
+            ByteBuffer content = ByteBuffer.allocate(length);
+            FileChannel channel = channel();
+            while (content.hasRemaining()) {
+                if (channel.read(content, position + content.position()) < 0) {
+                    throw new EOFException("Record at offset " + position + " runs past the end of " + path.getFileName());
+                }
+            }
+
+            return content.flip();
+        }
+    }
+
+    private final class MappedRecordResource extends AbstractResource {
+        private final String filename;
+        private final ByteBuffer content;
+
+        private MappedRecordResource(String filename, ByteBuffer content) {
+            this.filename = filename;
+            this.content = content;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return diskIoLimiter.open(() -> new ByteBufferInputStream(content.duplicate()));
+        }
+
+        @Override
+        public long contentLength() {
+            return content.capacity();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public String getDescription() {
+            return "segment record " + filename;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private record RecordLocation(Segment segment, long position, int nameLength, int contentLength, long writtenAt) {
+        private int length() {
+            return HEADER_SIZE + nameLength + contentLength;
+        }
+
+        private long end() {
+            return position + length();
+        }
+
+        private int contentOffset() {
+            return (int) position + HEADER_SIZE + nameLength;
+        }
+
+        private String name(MappedByteBuffer buffer) {
+            byte[] name = new byte[nameLength];
+            buffer.get((int) position + HEADER_SIZE, name);
+
+            return new String(name, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package syrovyi.vitalii.echovox.file.repository.impl;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes stored files survive a crash, as configured by {@code file.storage.durability}:
+ * <ul>
+ *     <li>{@code none}: nothing is synced; a crash may lose recent writes, and the page cache decides
+ *     whether a renamed file reaches the disk before its name does.</li>
+ *     <li>{@code fsync}: every call syncs right away on the caller's thread.</li>
+ *     <li>{@code group}: calls are queued and synced together by one committer thread. It waits up to
+ *     {@code file.storage.group-commit.window-ms} after the first request of a batch and syncs each distinct
+ *     path once, so concurrent appends to one segment log, or renames into one directory, share one
+ *     fsync. Distinct files of a batch are synced concurrently, which lets the file system's journal
+ *     commit them together.</li>
+ * </ul>
+ * Directories are synced to persist renames, creations and deletions of their entries. File systems
+ * that cannot sync a directory are skipped silently.
+ */
+@Slf4j
+@Component
+public class StorageSync {
+    private static final long IDLE_POLL_MS = 100;
+
+    private final Durability durability;
+    private final long windowNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSize;
+    private final Thread committer;
+    private final ExecutorService syncers;
+    private volatile boolean closed;
+
+    public StorageSync(@Value("${file.storage.durability:group}") String durability,
+                       @Value("${file.storage.group-commit.window-ms:2}") long windowMs,
+                       MeterRegistry meterRegistry) {
+        this.durability = Durability.valueOf(durability.trim().toUpperCase(Locale.ROOT));
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.batchSize = DistributionSummary.builder("echovox.storage.sync.batch")
+                .description("Distinct paths synced per group commit")
+                .maximumExpectedValue(1024.0)
+                .register(meterRegistry);
+        if (this.durability == Durability.GROUP) {
+            this.syncers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("storage-sync-", 0).factory());
+            this.committer = Thread.ofPlatform().name("storage-committer").daemon().start(this::commitLoop);
+        } else {
+            this.syncers = null;
+            this.committer = null;
+        }
+        log.info("Storage durability: {}{}", this.durability.name().toLowerCase(Locale.ROOT),
+                this.durability == Durability.GROUP ? " (window " + windowMs + " ms)" : "");
+    }
+
+    /**
+     * Flushes the file's content and metadata to disk.
+     */
+    public void syncFile(Path file) throws IOException {
+        sync(file, false);
+    }
+
+    /**
+     * Persists the entries of a directory: files renamed into, created in or deleted from it.
+     */
+    public void syncDirectory(Path directory) throws IOException {
+        sync(directory, true);
+    }
+
+    public boolean isEnabled() {
+        return durability != Durability.NONE;
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (committer == null) {
+            return;
+        }
+        closed = true;
+        committer.join(TimeUnit.SECONDS.toMillis(10));
+        syncers.shutdown();
+    }
+
+    private void sync(Path path, boolean directory) throws IOException {
+        switch (durability) {
+            case NONE -> {
+            }
+            case FSYNC -> force(path, directory);
+            case GROUP -> {
+                Request request = new Request(path, directory, new CompletableFuture<>());
+                queue.add(request);
+                await(request);
+            }
+        }
+    }
+
+    /**
+     * Polls instead of blocking, so shutdown never has to interrupt a thread that may be inside
+     * {@link FileChannel#force}, which an interrupt would abort.
+     */
+    private void commitLoop() {
+        List<Request> batch = new ArrayList<>();
+        while (!closed) {
+            try {
+                Request first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                for (long remaining = windowNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                complete(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Syncs each distinct path once and completes every request for it with the outcome.
+     */
+    private void complete(List<Request> batch) {
+        Map<Request.Key, List<Request>> byPath = new LinkedHashMap<>();
+        for (Request request : batch) {
+            byPath.computeIfAbsent(request.key(), key -> new ArrayList<>()).add(request);
+        }
+        batchSize.record(byPath.size());
+
+        List<CompletableFuture<Void>> syncs = new ArrayList<>(byPath.size());
+        for (Map.Entry<Request.Key, List<Request>> entry : byPath.entrySet()) {
+            Request.Key key = entry.getKey();
+            List<Request> waiting = entry.getValue();
+            Runnable sync = () -> {
+                try {
+                    force(key.path(), key.directory());
+                    waiting.forEach(request -> request.done().complete(null));
+                } catch (IOException | RuntimeException e) {
+                    waiting.forEach(request -> request.done().completeExceptionally(e));
+                }
+            };
+            if (byPath.size() == 1 || closed) {
+                sync.run();
+            } else {
+                syncs.add(CompletableFuture.runAsync(sync, syncers));
+            }
+        }
+        syncs.forEach(CompletableFuture::join);
+    }
+
+    /**
+     * A request queued after the committer stopped is taken back and synced on the caller's thread.
+     */
+    private void await(Request request) throws IOException {
+        try {
+            while (true) {
+                try {
+                    request.done().get(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    if (closed && !committer.isAlive() && queue.remove(request)) {
+                        force(request.path(), request.directory());
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a storage sync");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Storage sync failed", e.getCause());
+        }
+    }
+
+    private static void force(Path path, boolean directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, directory ? StandardOpenOption.READ : StandardOpenOption.WRITE)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (!directory) {
+                throw e;
+            }
+            log.debug("Could not sync directory {}: {}", path, e.getMessage());
+        }
+    }
+
+    private enum Durability {
+        NONE,
+        FSYNC,
+        GROUP
+    }
+
+    private record Request(Path path, boolean directory, CompletableFuture<Void> done) {
+        private Key key() {
+            return new Key(path, directory);
+        }
+
+        private record Key(Path path, boolean directory) {
+        }
+    }
+}
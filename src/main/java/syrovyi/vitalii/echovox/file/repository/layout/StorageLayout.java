@@ -0,0 +1,22 @@
+package syrovyi.vitalii.echovox.file.repository.layout;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Decides where a stored file lives below the upload root. Layouts are selected with
+ * {@code file.storage.layout} and are invisible to {@code FileSystemRepository} callers, which keep
+ * addressing files by name only.
+ */
+public interface StorageLayout {
+    String name();
+
+    Path resolve(Path root, String filename);
+
+    /**
+     * Directories that can contain files matching {@code globPattern}; layouts that partition by a
+     * component fixed in the pattern return only the matching shards. Existing directories only.
+     */
+    Stream<Path> searchDirectories(Path root, String globPattern) throws IOException;
+}
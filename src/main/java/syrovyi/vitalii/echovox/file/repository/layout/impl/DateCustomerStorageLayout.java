@@ -0,0 +1,110 @@
+package syrovyi.vitalii.echovox.file.repository.layout.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.file.repository.layout.StorageLayout;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Stores {@code customer_type_date.ext} as {@code <root>/<date>/<customer>/customer_type_date.ext}.
+ * Date globs ({@code *_date.ext}) only list one date directory and customer globs ({@code customer_*})
+ * only one customer directory per date; anything else walks every shard.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.layout", havingValue = "date-customer")
+public class DateCustomerStorageLayout implements StorageLayout {
+    private static final char SEPARATOR = '_';
+    private static final String WILDCARD_CHARS = "*?[{";
+
+    @Override
+    public String name() {
+        return "date-customer";
+    }
+
+    @Override
+    public Path resolve(Path root, String filename) {
+        int firstSeparator = filename.indexOf(SEPARATOR);
+        int lastSeparator = filename.lastIndexOf(SEPARATOR);
+        int extension = filename.indexOf('.', lastSeparator);
+
+        if (firstSeparator <= 0 || lastSeparator == firstSeparator || extension < 0) {
+            return root.resolve(filename);
+        }
+        String customer = filename.substring(0, firstSeparator);
+        String date = filename.substring(lastSeparator + 1, extension);
+
+        return root.resolve(date).resolve(customer).resolve(filename);
+    }
+
+    @Override
+    public Stream<Path> searchDirectories(Path root, String globPattern) throws IOException {
+        String date = dateOf(globPattern);
+        String customer = customerOf(globPattern);
+
+        Stream<Path> dateDirs = date != null
+                ? existing(root.resolve(date))
+                : subdirectories(root);
+
+        return dateDirs.flatMap(dateDir -> {
+            if (customer != null) {
+                return existing(dateDir.resolve(customer));
+            }
+            try {
+                return subdirectories(dateDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static String dateOf(String globPattern) {
+        if (!globPattern.startsWith("*" + SEPARATOR)) {
+            return null;
+        }
+        int extension = globPattern.indexOf('.');
+        if (extension < 0) {
+            return null;
+        }
+        String date = globPattern.substring(2, extension);
+
+        return isLiteral(date) && date.indexOf(SEPARATOR) < 0 ? date : null;
+    }
+
+    private static String customerOf(String globPattern) {
+        int separator = globPattern.indexOf(SEPARATOR);
+        if (separator <= 0) {
+            return null;
+        }
+        String customer = globPattern.substring(0, separator);
+
+        return isLiteral(customer) ? customer : null;
+    }
+
+    private static boolean isLiteral(String part) {
+        for (int i = 0; i < part.length(); i++) {
+            if (WILDCARD_CHARS.indexOf(part.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+
+        return !part.isEmpty();
+    }
+
+    private static Stream<Path> existing(Path dir) {
+        return Files.isDirectory(dir) ? Stream.of(dir) : Stream.empty();
+    }
+
+    private static Stream<Path> subdirectories(Path dir) throws IOException {
+        try (Stream<Path> children = Files.list(dir)) {
+            return children.filter(Files::isDirectory)
+                    .filter(child -> !child.getFileName().toString().startsWith("."))
+                    .toList()
+                    .stream();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package syrovyi.vitalii.echovox.file.repository.layout.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.file.repository.layout.StorageLayout;
+
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+@Component
+@ConditionalOnProperty(name = "file.storage.layout", havingValue = "flat", matchIfMissing = true)
+public class FlatStorageLayout implements StorageLayout {
+
+    @Override
+    public String name() {
+        return "flat";
+    }
+
+    @Override
+    public Path resolve(Path root, String filename) {
+        return root.resolve(filename);
+    }
+
+    @Override
+    public Stream<Path> searchDirectories(Path root, String globPattern) {
+        return Stream.of(root);
+    }
+}
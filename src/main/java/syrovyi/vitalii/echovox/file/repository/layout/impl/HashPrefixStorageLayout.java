@@ -0,0 +1,46 @@
+package syrovyi.vitalii.echovox.file.repository.layout.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.file.repository.layout.StorageLayout;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Spreads files evenly over 256 directories named by the first byte of the CRC-32 of the filename,
+ * e.g. {@code <root>/3f/acme_invoice_2024-01-01.json}. No glob can be narrowed to a shard.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.layout", havingValue = "hash")
+public class HashPrefixStorageLayout implements StorageLayout {
+    private static final int SHARDS = 256;
+
+    @Override
+    public String name() {
+        return "hash";
+    }
+
+    @Override
+    public Path resolve(Path root, String filename) {
+        CRC32 crc = new CRC32();
+        crc.update(filename.getBytes(StandardCharsets.UTF_8));
+
+        return root.resolve(shardName((int) (crc.getValue() & (SHARDS - 1)))).resolve(filename);
+    }
+
+    @Override
+    public Stream<Path> searchDirectories(Path root, String globPattern) {
+        return IntStream.range(0, SHARDS)
+                .mapToObj(shard -> root.resolve(shardName(shard)))
+                .filter(Files::isDirectory);
+    }
+
+    private static String shardName(int shard) {
+        return String.format("%02x", shard);
+    }
+}
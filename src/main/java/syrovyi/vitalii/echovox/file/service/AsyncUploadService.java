@@ -0,0 +1,14 @@
+package syrovyi.vitalii.echovox.file.service;
+
+import org.springframework.web.multipart.MultipartFile;
+import syrovyi.vitalii.echovox.file.controller.dto.response.UploadJobResponseDTO;
+
+public interface AsyncUploadService {
+    /**
+     * Spools the upload and queues it for conversion. Fails with {@code TOO_MANY_REQUESTS} when the
+     * queue is full and {@code SERVICE_UNAVAILABLE} when the spool cannot be written.
+     */
+    UploadJobResponseDTO submit(MultipartFile file, boolean allowOverwrite);
+
+    UploadJobResponseDTO getJob(String jobId);
+}
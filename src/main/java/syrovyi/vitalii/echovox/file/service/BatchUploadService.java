@@ -0,0 +1,13 @@
+package syrovyi.vitalii.echovox.file.service;
+
+import org.springframework.web.multipart.MultipartFile;
+import syrovyi.vitalii.echovox.file.controller.dto.response.BatchUploadResponseDTO;
+
+import java.io.InputStream;
+import java.util.List;
+
+public interface BatchUploadService {
+    BatchUploadResponseDTO uploadFiles(List<MultipartFile> files, boolean allowOverwrite);
+
+    BatchUploadResponseDTO uploadZip(InputStream zip, boolean allowOverwrite);
+}
@@ -0,0 +1,12 @@
+package syrovyi.vitalii.echovox.file.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface ChangeFeedService {
+    /**
+     * Streams file changes as Server-Sent Events, starting after {@code lastEventId}: an event id of
+     * this feed ({@code <epoch>:<sequence>}) or a bare sequence number. Without one only new changes are
+     * sent. When the requested changes are no longer retained a {@code reset} event is sent first.
+     */
+    SseEmitter subscribe(String lastEventId);
+}
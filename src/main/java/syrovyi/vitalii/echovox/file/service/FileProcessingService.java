@@ -2,8 +2,17 @@ package syrovyi.vitalii.echovox.file.service;
 
 import org.springframework.web.multipart.MultipartFile;
 import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FilePageResponseDTO;
 import syrovyi.vitalii.echovox.file.controller.dto.response.FileResponseDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FileStatisticsResponseDTO;
+import syrovyi.vitalii.echovox.file.model.FileProjection;
+import syrovyi.vitalii.echovox.file.model.FileQuery;
+import syrovyi.vitalii.echovox.file.model.RawContent;
+import syrovyi.vitalii.echovox.file.model.Tagged;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -12,13 +21,67 @@ public interface FileProcessingService {
 
     void replaceFile(MultipartFile file);
 
+    void storeFile(String originalFilename, InputStream xml, boolean allowOverwrite);
+
     void deleteFile(String filename);
 
+    /**
+     * Brings the indexes, the content cache and the change feed in line with a stored file that may
+     * have been added, changed or removed outside the application. Does nothing when they already agree.
+     */
+    void refreshFile(String filename);
+
     List<FileResponseDTO> getFilesByDate(LocalDate date);
 
     List<FileResponseDTO> getFilesByCustomer(String customerName);
 
     List<FileResponseDTO> getFilesByType(String type);
 
+    /**
+     * Files matching every criterion set in {@code query}. Matching is decided on filenames only; file
+     * content is read for the matches alone, and not at all for {@link FileProjection#NAME}.
+     */
+    List<FileResponseDTO> queryFiles(FileQuery query, FileProjection projection);
+
+    /**
+     * Files whose customer name or payload contains every word and quoted phrase of {@code text}.
+     * Matching is answered by the text index; file content is read for the matches alone.
+     */
+    List<FileResponseDTO> searchContent(String text, FileProjection projection);
+
+    /**
+     * Number and stored size of the files matching every given criterion, kept up to date on every
+     * write, so answering takes neither a scan nor a file read.
+     */
+    FileStatisticsResponseDTO getStatistics(String customer, String type, LocalDate date);
+
+    /**
+     * The same totals per customer, type and date among the files matching every given criterion.
+     */
+    List<FileStatisticsResponseDTO> getStatisticsBreakdown(String customer, String type, LocalDate date);
+
+    FilePageResponseDTO getFilesPage(FileQuery query, String cursor, int limit, FileProjection projection);
+
+    void streamFiles(FileQuery query, OutputStream out) throws IOException;
+
     CustomerJsonDTO getFileContent(String filename);
+
+    RawContent getRawContent(String filename, boolean acceptsGzip);
+
+    String getFileETag(String filename);
+
+    /**
+     * {@link #queryFiles} with an ETag over the same matches the body is built from.
+     */
+    Tagged<List<FileResponseDTO>> queryFilesTagged(FileQuery query, FileProjection projection);
+
+    /**
+     * {@link #searchContent} with an ETag over the same matches the body is built from.
+     */
+    Tagged<List<FileResponseDTO>> searchContentTagged(String text, FileProjection projection);
+
+    /**
+     * {@link #getFilesPage} with an ETag over the same page the body is built from.
+     */
+    Tagged<FilePageResponseDTO> getFilesPageTagged(FileQuery query, String cursor, int limit, FileProjection projection);
 }
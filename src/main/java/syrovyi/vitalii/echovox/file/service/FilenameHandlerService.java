@@ -1,13 +1,19 @@
 package syrovyi.vitalii.echovox.file.service;
 
+import syrovyi.vitalii.echovox.file.model.FileQuery;
+import syrovyi.vitalii.echovox.file.model.FilenameParts;
+
 import java.time.LocalDate;
+import java.util.Optional;
 
 public interface FilenameHandlerService {
     void validate(String filename);
 
     String toStoredFilename(String originalXmlName);
 
-    String toOriginalFilename(String storedJsonName);
+    String toOriginalFilename(String storedName);
+
+    Optional<FilenameParts> parse(String filename);
 
     boolean matchesCustomer(String filename, String customer);
 
@@ -15,6 +21,13 @@ public interface FilenameHandlerService {
 
     boolean matchesDate(String filename, LocalDate date);
 
+    /**
+     * Whether the name satisfies every criterion set in {@code query}; the date range is inclusive.
+     */
+    boolean matches(String filename, FileQuery query);
+
+    String generateAllGlob();
+
     String generateDateGlob(LocalDate date);
 
     String generateCustomerGlob(String customerName);
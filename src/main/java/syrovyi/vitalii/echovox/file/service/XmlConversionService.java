@@ -0,0 +1,17 @@
+package syrovyi.vitalii.echovox.file.service;
+
+import syrovyi.vitalii.echovox.file.codec.DocumentWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.UnaryOperator;
+
+public interface XmlConversionService {
+    void convert(InputStream xml, OutputStream out) throws IOException;
+
+    /**
+     * Converts through the writer returned by {@code decorator}, which sees every field as it is written.
+     */
+    void convert(InputStream xml, OutputStream out, UnaryOperator<DocumentWriter> decorator) throws IOException;
+}
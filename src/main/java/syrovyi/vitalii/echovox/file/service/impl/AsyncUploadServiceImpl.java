@@ -0,0 +1,312 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import syrovyi.vitalii.echovox.common.config.executor.ExecutorConfig;
+import syrovyi.vitalii.echovox.common.exception.enums.ErrorCode;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.controller.dto.response.UploadJobResponseDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.enums.UploadJobStatus;
+import syrovyi.vitalii.echovox.file.metrics.PipelineMetrics;
+import syrovyi.vitalii.echovox.file.metrics.PipelineStage;
+import syrovyi.vitalii.echovox.file.repository.FileSystemRepository;
+import syrovyi.vitalii.echovox.file.repository.impl.StorageSync;
+import syrovyi.vitalii.echovox.file.service.AsyncUploadService;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Accepts uploads by spooling the raw XML under {@code <upload-dir>/.spool} and converting it later on
+ * the upload executor through {@link FileProcessingService#storeFile}, the same path synchronous uploads
+ * take. A spooled file is named {@code <jobId>.<create|replace>.<filename>} and removed once its job
+ * finishes, so jobs accepted before a crash or shutdown are queued again on the next start.
+ * <p>
+ * Filename and existence checks run before spooling, so a rejected upload costs no disk writes. Job
+ * state is kept in memory: running jobs until they finish, finished ones for
+ * {@code file.async.job-retention-minutes}.
+ */
+@Slf4j
+@Service
+public class AsyncUploadServiceImpl implements AsyncUploadService {
+    private static final String SPOOL_DIRECTORY = ".spool";
+    private static final String MODE_CREATE = "create";
+    private static final String MODE_REPLACE = "replace";
+    private static final String OPERATION = "async-upload";
+    private static final long RESUBMIT_DELAY_MS = 100;
+
+    private final FileProcessingService fileProcessingService;
+    private final FileSystemRepository fileSystemRepository;
+    private final FilenameHandlerService filenameHandler;
+    private final ThreadPoolTaskExecutor uploadExecutor;
+    private final PipelineMetrics pipelineMetrics;
+    private final StorageSync storageSync;
+    private final Path spoolDirectory;
+    private final ConcurrentMap<String, Job> active = new ConcurrentHashMap<>();
+    private final Cache<String, UploadJobResponseDTO> finished;
+    private volatile boolean closed;
+
+    public AsyncUploadServiceImpl(FileProcessingService fileProcessingService,
+                                  FileSystemRepository fileSystemRepository,
+                                  FilenameHandlerService filenameHandler,
+                                  @Qualifier(ExecutorConfig.UPLOAD_EXECUTOR) ThreadPoolTaskExecutor uploadExecutor,
+                                  PipelineMetrics pipelineMetrics,
+                                  StorageSync storageSync,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${file.upload-dir}") String uploadDir,
+                                  @Value("${file.async.job-retention-minutes:60}") long retentionMinutes,
+                                  @Value("${file.async.max-finished-jobs:100000}") long maxFinishedJobs) {
+        this.fileProcessingService = fileProcessingService;
+        this.fileSystemRepository = fileSystemRepository;
+        this.filenameHandler = filenameHandler;
+        this.uploadExecutor = uploadExecutor;
+        this.pipelineMetrics = pipelineMetrics;
+        this.storageSync = storageSync;
+        this.spoolDirectory = Paths.get(uploadDir).resolve(SPOOL_DIRECTORY);
+        this.finished = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(retentionMinutes))
+                .maximumSize(maxFinishedJobs)
+                .build();
+
+        Gauge.builder("echovox.upload.queue.size", uploadExecutor, executor -> executor.getThreadPoolExecutor().getQueue().size())
+                .description("Asynchronous uploads waiting for a conversion worker")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        List<Path> spooled;
+        try {
+            Files.createDirectories(spoolDirectory);
+            try (Stream<Path> files = Files.list(spoolDirectory)) {
+                spooled = files.sorted(Comparator.comparing(AsyncUploadServiceImpl::lastModified)).toList();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open upload spool " + spoolDirectory, e);
+        }
+        if (!spooled.isEmpty()) {
+            log.info("Resuming {} spooled uploads", spooled.size());
+            Thread.ofPlatform().name("upload-recovery").daemon().start(() -> resume(spooled));
+        }
+    }
+
+    /**
+     * Jobs still queued are left spooled and resume on the next start; running ones are awaited by the
+     * executor's shutdown. Runs on context close, before the executor starts draining its queue.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public UploadJobResponseDTO submit(MultipartFile file, boolean allowOverwrite) {
+        return pipelineMetrics.record(PipelineStage.SPOOL, OPERATION, () -> {
+            String filename = file.getOriginalFilename();
+            if (Objects.isNull(filename) || filename.isEmpty()) {
+                throw new ClientBackendException(ErrorCode.VALIDATION_ERROR, "Filename cannot be empty");
+            }
+            filenameHandler.validate(filename);
+
+            if (!allowOverwrite && fileSystemRepository.exists(filenameHandler.toStoredFilename(filename))) {
+                throw new ClientBackendException(ErrorCode.ALREADY_EXISTS, "File " + filename + " already exists");
+            }
+            if (closed) {
+                throw new ClientBackendException(ErrorCode.SERVICE_UNAVAILABLE, "Uploads are not accepted during shutdown");
+            }
+            if (uploadExecutor.getThreadPoolExecutor().getQueue().remainingCapacity() == 0) {
+                throw queueFull();
+            }
+
+            String jobId = UUID.randomUUID().toString();
+            Job job = new Job(jobId, filename, allowOverwrite,
+                    spoolDirectory.resolve(jobId + '.' + (allowOverwrite ? MODE_REPLACE : MODE_CREATE) + '.' + filename),
+                    Instant.now());
+            spool(file, job.spooled);
+
+            active.put(jobId, job);
+            try {
+                uploadExecutor.execute(() -> process(job));
+            } catch (TaskRejectedException e) {
+                active.remove(jobId);
+                deleteQuietly(job.spooled);
+                throw queueFull();
+            }
+
+            return job.toResponse();
+        });
+    }
+
+    @Override
+    public UploadJobResponseDTO getJob(String jobId) {
+        Job job = active.get(jobId);
+        if (Objects.nonNull(job)) {
+            return job.toResponse();
+        }
+        UploadJobResponseDTO result = finished.getIfPresent(jobId);
+        if (Objects.isNull(result)) {
+            throw new ClientBackendException(ErrorCode.NOT_FOUND, "Upload job not found: " + jobId);
+        }
+
+        return result;
+    }
+
+    private void process(Job job) {
+        if (closed) {
+            return;
+        }
+        job.status = UploadJobStatus.PROCESSING;
+
+        try (InputStream xml = Files.newInputStream(job.spooled)) {
+            fileProcessingService.storeFile(job.filename, xml, job.allowOverwrite);
+            complete(job, null, null);
+        } catch (ClientBackendException e) {
+            complete(job, e.getErrorCode(), e.getMessage());
+        } catch (Exception e) {
+            log.error("Asynchronous upload {} of {} failed", job.id, job.filename, e);
+            complete(job, ErrorCode.INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes the result before dropping the running entry, so a poll never misses the job.
+     */
+    private void complete(Job job, ErrorCode errorCode, String message) {
+        job.status = Objects.isNull(errorCode) ? UploadJobStatus.STORED : UploadJobStatus.FAILED;
+        UploadJobResponseDTO result = job.toResponse();
+        result.setCompletedAt(Instant.now());
+        if (Objects.nonNull(errorCode)) {
+            result.setErrorCode(errorCode.getCode());
+            result.setMessage(message);
+        }
+        finished.put(job.id, result);
+        active.remove(job.id);
+        deleteQuietly(job.spooled);
+    }
+
+    /**
+     * Written to a temporary name and synced before the rename, and the spool directory after it, so a
+     * spooled file is always complete and an accepted upload survives a crash.
+     */
+    private void spool(MultipartFile file, Path target) {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            storageSync.syncFile(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            storageSync.syncDirectory(spoolDirectory);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new ClientBackendException(ErrorCode.SERVICE_UNAVAILABLE, "Could not spool upload " + file.getOriginalFilename(), e);
+        }
+    }
+
+    /**
+     * Queues jobs found in the spool at startup, waiting for room in the queue instead of failing them.
+     */
+    private void resume(List<Path> spooled) {
+        for (Path path : spooled) {
+            if (closed) {
+                return;
+            }
+            String name = path.getFileName().toString();
+            String[] parts = name.split("\\.", 3);
+            if (name.endsWith(".tmp") || parts.length < 3 || !(MODE_CREATE.equals(parts[1]) || MODE_REPLACE.equals(parts[1]))) {
+                log.warn("Removing unrecognised spool entry {}", path);
+                deleteQuietly(path);
+                continue;
+            }
+            Job job = new Job(parts[0], parts[2], MODE_REPLACE.equals(parts[1]), path, Instant.ofEpochMilli(lastModified(path)));
+            active.put(job.id, job);
+            while (!closed) {
+                try {
+                    uploadExecutor.execute(() -> process(job));
+                    break;
+                } catch (TaskRejectedException e) {
+                    try {
+                        Thread.sleep(RESUBMIT_DELAY_MS);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static ClientBackendException queueFull() {
+        return new ClientBackendException(ErrorCode.TOO_MANY_REQUESTS, "Upload queue is full, retry later");
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not remove spooled upload {}", path, e);
+        }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String filename;
+        private final boolean allowOverwrite;
+        private final Path spooled;
+        private final Instant submittedAt;
+        private volatile UploadJobStatus status = UploadJobStatus.QUEUED;
+
+        private Job(String id, String filename, boolean allowOverwrite, Path spooled, Instant submittedAt) {
+            this.id = id;
+            this.filename = filename;
+            this.allowOverwrite = allowOverwrite;
+            this.spooled = spooled;
+            this.submittedAt = submittedAt;
+        }
+
+        private UploadJobResponseDTO toResponse() {
+            return UploadJobResponseDTO.builder()
+                    .jobId(id)
+                    .fileName(filename)
+                    .status(status)
+                    .submittedAt(submittedAt)
+                    .build();
+        }
+    }
+}
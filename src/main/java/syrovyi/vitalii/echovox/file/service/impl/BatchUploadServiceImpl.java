@@ -0,0 +1,297 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import syrovyi.vitalii.echovox.common.config.executor.ExecutorConfig;
+import syrovyi.vitalii.echovox.common.exception.enums.ErrorCode;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.controller.dto.response.BatchItemResultDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.BatchUploadResponseDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.enums.BatchItemStatus;
+import syrovyi.vitalii.echovox.file.service.BatchUploadService;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Converts every file of a batch independently on the bounded ingest executor. A failing file is
+ * reported in the result list and never aborts the rest of the batch; results keep input order.
+ * <p>
+ * ZIP entries are spooled to disk before conversion. Their uncompressed size is capped per entry by
+ * {@code file.batch.max-entry-bytes}; entries over it are reported as failed. The whole archive may
+ * inflate at most {@code file.batch.max-total-bytes}, counting entries that are rejected and skipped,
+ * so a highly compressed archive can neither fill the disk nor keep the CPU busy: once the budget is
+ * spent, reading stops and the rest of the archive is reported as not processed. If the archive turns
+ * out to be unreadable part-way, the entries read so far are still converted and reported, followed by
+ * a failure for the rest of the archive.
+ */
+@Slf4j
+@Service
+public class BatchUploadServiceImpl implements BatchUploadService {
+    private static final int SPOOL_BUFFER_SIZE = 8192;
+
+    private final FileProcessingService fileProcessingService;
+    private final FilenameHandlerService filenameHandler;
+    private final Executor ingestExecutor;
+    private final int maxEntries;
+    private final long maxEntryBytes;
+    private final long maxTotalBytes;
+
+    public BatchUploadServiceImpl(FileProcessingService fileProcessingService,
+                                  FilenameHandlerService filenameHandler,
+                                  @Qualifier(ExecutorConfig.INGEST_EXECUTOR) Executor ingestExecutor,
+                                  @Value("${file.batch.max-entries:100000}") int maxEntries,
+                                  @Value("${file.batch.max-entry-bytes:104857600}") long maxEntryBytes,
+                                  @Value("${file.batch.max-total-bytes:1073741824}") long maxTotalBytes) {
+        this.fileProcessingService = fileProcessingService;
+        this.filenameHandler = filenameHandler;
+        this.ingestExecutor = ingestExecutor;
+        this.maxEntries = maxEntries;
+        this.maxEntryBytes = maxEntryBytes;
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    @Override
+    public BatchUploadResponseDTO uploadFiles(List<MultipartFile> files, boolean allowOverwrite) {
+        if (files.size() > maxEntries) {
+            throw new ClientBackendException(ErrorCode.VALIDATION_ERROR,
+                    "Batch contains " + files.size() + " files, the limit is " + maxEntries);
+        }
+        List<CompletableFuture<BatchItemResultDTO>> results = new ArrayList<>(files.size());
+
+        for (MultipartFile file : files) {
+            String filename = file.getOriginalFilename();
+            BatchItemResultDTO invalid = validate(filename);
+
+            results.add(invalid != null
+                    ? CompletableFuture.completedFuture(invalid)
+                    : submit(filename, file::getInputStream, () -> { }, allowOverwrite));
+        }
+
+        return toResponse(results);
+    }
+
+    @Override
+    public BatchUploadResponseDTO uploadZip(InputStream zip, boolean allowOverwrite) {
+        List<CompletableFuture<BatchItemResultDTO>> results = new ArrayList<>();
+        SizeBudget budget = new SizeBudget(maxTotalBytes);
+        String filename = null;
+
+        try (ZipInputStream entries = new ZipInputStream(zip)) {
+            ZipEntry entry;
+            while (!budget.exceeded() && (entry = entries.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                filename = baseName(entry.getName());
+
+                BatchItemResultDTO rejected = results.size() >= maxEntries
+                        ? failure(filename, ErrorCode.VALIDATION_ERROR, "Batch entry limit of " + maxEntries + " exceeded")
+                        : validate(filename);
+                if (rejected != null) {
+                    results.add(CompletableFuture.completedFuture(rejected));
+                    skip(entries, budget);
+                } else {
+                    results.add(submitSpooled(filename, entries, budget, allowOverwrite));
+                }
+                filename = null;
+            }
+            if (budget.exceeded()) {
+                results.add(CompletableFuture.completedFuture(failure(null, ErrorCode.VALIDATION_ERROR,
+                        totalLimitMessage() + "; any later entries were not processed")));
+            }
+        } catch (IOException e) {
+            if (results.isEmpty()) {
+                throw new ClientBackendException(ErrorCode.INVALID_FORMAT, "Could not read ZIP archive", e);
+            }
+            log.warn("ZIP archive became unreadable after {} entries", results.size(), e);
+            results.add(CompletableFuture.completedFuture(failure(filename, ErrorCode.INVALID_FORMAT,
+                    "Could not read the rest of the ZIP archive")));
+        }
+
+        return toResponse(results);
+    }
+
+    private CompletableFuture<BatchItemResultDTO> submitSpooled(String filename, InputStream entry, SizeBudget budget,
+                                                                boolean allowOverwrite) throws IOException {
+        Path spooled = Files.createTempFile("echovox-batch-", ".xml");
+        boolean complete;
+        try {
+            complete = spool(entry, spooled, budget);
+        } catch (IOException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+        if (!complete) {
+            Files.deleteIfExists(spooled);
+            return CompletableFuture.completedFuture(failure(filename, ErrorCode.VALIDATION_ERROR, budget.exceeded()
+                    ? totalLimitMessage()
+                    : "Entry exceeds the uncompressed size limit of " + maxEntryBytes + " bytes"));
+        }
+
+        return submit(filename, () -> Files.newInputStream(spooled), () -> deleteQuietly(spooled), allowOverwrite);
+    }
+
+    /**
+     * Copies the entry to {@code target}. An entry over {@code maxEntryBytes} is read to its end without
+     * being kept; reading stops as soon as the archive's budget is spent.
+     *
+     * @return whether the whole entry was copied
+     */
+    private boolean spool(InputStream entry, Path target, SizeBudget budget) throws IOException {
+        byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+        long copied = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = entry.read(buffer)) > 0) {
+                if (!budget.use(read)) {
+                    return false;
+                }
+                copied += read;
+                if (copied > maxEntryBytes) {
+                    skip(entry, budget);
+                    return false;
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the rest of the entry, so the next one can be reached, until the archive's budget is spent.
+     */
+    private static void skip(InputStream entry, SizeBudget budget) throws IOException {
+        byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+        int read;
+        while ((read = entry.read(buffer)) > 0) {
+            if (!budget.use(read)) {
+                return;
+            }
+        }
+    }
+
+    private String totalLimitMessage() {
+        return "Archive exceeds the uncompressed size limit of " + maxTotalBytes + " bytes";
+    }
+
+    private CompletableFuture<BatchItemResultDTO> submit(String filename, XmlSource source, Runnable cleanup,
+                                                         boolean allowOverwrite) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (InputStream xml = source.open()) {
+                fileProcessingService.storeFile(filename, xml, allowOverwrite);
+
+                return BatchItemResultDTO.builder()
+                        .fileName(filename)
+                        .status(BatchItemStatus.STORED)
+                        .build();
+            } catch (ClientBackendException e) {
+                return failure(filename, e.getErrorCode(), e.getMessage());
+            } catch (Exception e) {
+                log.error("Batch conversion of {} failed", filename, e);
+                return failure(filename, ErrorCode.INTERNAL_SERVER_ERROR, e.getMessage());
+            } finally {
+                cleanup.run();
+            }
+        }, ingestExecutor);
+    }
+
+    private BatchItemResultDTO validate(String filename) {
+        try {
+            filenameHandler.validate(filename);
+            return null;
+        } catch (ClientBackendException e) {
+            return failure(filename, e.getErrorCode(), e.getMessage());
+        }
+    }
+
+    private static BatchUploadResponseDTO toResponse(List<CompletableFuture<BatchItemResultDTO>> futures) {
+        List<BatchItemResultDTO> results = futures.stream()
+                .map(BatchUploadServiceImpl::join)
+                .toList();
+        int succeeded = (int) results.stream()
+                .filter(result -> result.getStatus() == BatchItemStatus.STORED)
+                .count();
+
+        return BatchUploadResponseDTO.builder()
+                .total(results.size())
+                .succeeded(succeeded)
+                .failed(results.size() - succeeded)
+                .results(results)
+                .build();
+    }
+
+    private static BatchItemResultDTO join(CompletableFuture<BatchItemResultDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            return failure(null, ErrorCode.INTERNAL_SERVER_ERROR, e.getCause().getMessage());
+        }
+    }
+
+    private static BatchItemResultDTO failure(String filename, ErrorCode errorCode, String message) {
+        return BatchItemResultDTO.builder()
+                .fileName(filename)
+                .status(BatchItemStatus.FAILED)
+                .errorCode(errorCode.getCode())
+                .message(message)
+                .build();
+    }
+
+    private static String baseName(String entryName) {
+        int slash = Math.max(entryName.lastIndexOf('/'), entryName.lastIndexOf('\\'));
+
+        return entryName.substring(slash + 1);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not remove spooled batch entry {}", path, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface XmlSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Uncompressed bytes one archive may still inflate.
+     */
+    private static final class SizeBudget {
+        private long remaining;
+
+        private SizeBudget(long total) {
+            this.remaining = total;
+        }
+
+        /**
+         * @return {@code false} once more than the total has been inflated
+         */
+        private boolean use(long bytes) {
+            remaining -= bytes;
+            return remaining >= 0;
+        }
+
+        private boolean exceeded() {
+            return remaining < 0;
+        }
+    }
+}
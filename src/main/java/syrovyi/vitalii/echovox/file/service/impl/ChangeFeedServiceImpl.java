@@ -0,0 +1,166 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import syrovyi.vitalii.echovox.common.exception.enums.ErrorCode;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FileChangeEventDTO;
+import syrovyi.vitalii.echovox.file.feed.ChangeFeed;
+import syrovyi.vitalii.echovox.file.model.ChangeBatch;
+import syrovyi.vitalii.echovox.file.service.ChangeFeedService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves each subscriber from its own virtual thread, which reads the change feed from the subscriber's
+ * cursor and waits on the feed when it has caught up. Nothing is queued per subscriber: one that falls
+ * further behind than the feed retains gets a {@code reset} event and continues from the latest change.
+ * A comment is sent every {@code file.feed.heartbeat-seconds} while idle, which also detects clients
+ * that went away.
+ */
+@Slf4j
+@Service
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+    private static final int BATCH_SIZE = 256;
+    private static final String RESET_EVENT = "reset";
+
+    private final ChangeFeed changeFeed;
+    private final long heartbeatMillis;
+    private final Semaphore slots;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong subscriptionIds = new AtomicLong();
+    private volatile boolean closed;
+
+    public ChangeFeedServiceImpl(ChangeFeed changeFeed,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${file.feed.heartbeat-seconds:15}") long heartbeatSeconds,
+                                 @Value("${file.feed.max-subscribers:256}") int maxSubscribers) {
+        this.changeFeed = changeFeed;
+        this.heartbeatMillis = TimeUnit.SECONDS.toMillis(heartbeatSeconds);
+        this.slots = new Semaphore(maxSubscribers);
+        Gauge.builder("echovox.feed.subscribers", subscriptions, Set::size)
+                .description("Open change feed subscriptions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public SseEmitter subscribe(String lastEventId) {
+        long cursor = parseCursor(lastEventId);
+        if (closed || !slots.tryAcquire()) {
+            throw new ClientBackendException(ErrorCode.SERVICE_UNAVAILABLE, "Too many change feed subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter();
+        Subscription subscription = new Subscription(emitter, cursor);
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        subscriptions.add(subscription);
+        Thread.ofVirtual()
+                .name("change-feed-" + subscriptionIds.incrementAndGet())
+                .start(subscription::run);
+
+        return emitter;
+    }
+
+    /**
+     * Ends open subscriptions before the web server stops; clients reconnect with their last event id.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void close() {
+        closed = true;
+        subscriptions.forEach(subscription -> {
+            subscription.cancel();
+            subscription.emitter.complete();
+        });
+    }
+
+    private long parseCursor(String lastEventId) {
+        if (Objects.isNull(lastEventId) || lastEventId.isBlank()) {
+            return changeFeed.latestSequence();
+        }
+        try {
+            int separator = lastEventId.indexOf(':');
+            if (separator < 0) {
+                return Long.parseLong(lastEventId.trim());
+            }
+            long epoch = Long.parseLong(lastEventId.substring(0, separator).trim());
+            long sequence = Long.parseLong(lastEventId.substring(separator + 1).trim());
+
+            return epoch == changeFeed.epoch() ? sequence : Long.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            throw new ClientBackendException(ErrorCode.VALIDATION_ERROR, "Invalid change feed position: " + lastEventId);
+        }
+    }
+
+    private String eventId(long sequence) {
+        return changeFeed.epoch() + ":" + sequence;
+    }
+
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private long cursor;
+        private volatile boolean cancelled;
+
+        private Subscription(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+
+        private void run() {
+            try {
+                emitter.send(SseEmitter.event().comment("subscribed"));
+                while (!cancelled && !closed) {
+                    ChangeBatch batch = changeFeed.read(cursor, BATCH_SIZE);
+                    if (batch.reset()) {
+                        cursor = batch.latestSequence();
+                        emitter.send(SseEmitter.event()
+                                .name(RESET_EVENT)
+                                .id(eventId(cursor))
+                                .data(Map.of("latestSequence", cursor), MediaType.APPLICATION_JSON));
+                    } else if (!batch.events().isEmpty()) {
+                        send(batch.events());
+                    } else if (!changeFeed.await(cursor, heartbeatMillis, TimeUnit.MILLISECONDS)) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Change feed subscriber disconnected: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } finally {
+                subscriptions.remove(this);
+                slots.release();
+            }
+        }
+
+        private void send(List<FileChangeEventDTO> events) throws IOException {
+            for (FileChangeEventDTO event : events) {
+                emitter.send(SseEmitter.event()
+                        .id(eventId(event.getSequence()))
+                        .data(event, MediaType.APPLICATION_JSON));
+                cursor = event.getSequence();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes writes to the same stored file: an upload's existence check, its write and the index
+ * updates that follow must not interleave with another upload, replace or delete of the same name.
+ * <p>
+ * Each name being written gets its own lock, counted by the writers holding or waiting for it and
+ * dropped when the last one leaves, so memory follows the number of names in flight and writes to
+ * different names never wait for each other. A write holds its lock through conversion and fsync, so
+ * sharing locks between names (striping) would make unrelated uploads queue behind each other's disk
+ * time. {@code file.locks.enabled=false} disables the coordination.
+ */
+@Slf4j
+@Component
+public class FileLocks {
+    private static final Held UNLOCKED = () -> {
+    };
+
+    private final boolean enabled;
+    private final Map<String, NameLock> locks = new ConcurrentHashMap<>();
+
+    public FileLocks(@Value("${file.locks.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        log.info("File write locks: {}", enabled ? "per filename" : "disabled");
+    }
+
+    /**
+     * Blocks until no other writer holds {@code storedName}; closing the result releases it.
+     */
+    public Held lock(String storedName) {
+        if (!enabled) {
+            return UNLOCKED;
+        }
+        NameLock lock = locks.compute(storedName, (name, current) -> {
+            NameLock acquired = current == null ? new NameLock() : current;
+            acquired.users++;
+            return acquired;
+        });
+        try {
+            lock.lock();
+        } catch (RuntimeException | Error e) {
+            release(storedName, lock);
+            throw e;
+        }
+
+        return () -> {
+            lock.unlock();
+            release(storedName, lock);
+        };
+    }
+
+    /**
+     * Number of names currently locked or waited for.
+     */
+    int size() {
+        return locks.size();
+    }
+
+    private void release(String storedName, NameLock lock) {
+        locks.computeIfPresent(storedName, (name, current) -> current == lock && --current.users == 0 ? null : current);
+    }
+
+    @FunctionalInterface
+    public interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * {@code users} is only read and written inside {@link ConcurrentHashMap#compute} on the name.
+     */
+    private static final class NameLock extends ReentrantLock {
+        private int users;
+    }
+}
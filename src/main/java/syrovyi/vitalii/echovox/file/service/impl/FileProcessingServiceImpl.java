@@ -4,38 +4,86 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import syrovyi.vitalii.echovox.common.exception.enums.ErrorCode;
 import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.cache.ContentCache;
+import syrovyi.vitalii.echovox.file.codec.StorageCodec;
 import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
-import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerXmlDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FilePageResponseDTO;
 import syrovyi.vitalii.echovox.file.controller.dto.response.FileResponseDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FileStatisticsResponseDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.enums.FileChangeType;
+import syrovyi.vitalii.echovox.file.feed.ChangeFeed;
+import syrovyi.vitalii.echovox.file.index.DocumentTerms;
+import syrovyi.vitalii.echovox.file.index.FileIndex;
+import syrovyi.vitalii.echovox.file.index.FileStatistics;
+import syrovyi.vitalii.echovox.file.index.TextIndex;
 import syrovyi.vitalii.echovox.file.mapper.FileDataMapper;
+import syrovyi.vitalii.echovox.file.metrics.CountingInputStream;
+import syrovyi.vitalii.echovox.file.metrics.CountingOutputStream;
+import syrovyi.vitalii.echovox.file.metrics.PipelineMetrics;
+import syrovyi.vitalii.echovox.file.metrics.PipelineStage;
+import syrovyi.vitalii.echovox.file.model.FileProjection;
+import syrovyi.vitalii.echovox.file.model.FileQuery;
+import syrovyi.vitalii.echovox.file.model.FileTotals;
+import syrovyi.vitalii.echovox.file.model.RawContent;
+import syrovyi.vitalii.echovox.file.model.Tagged;
+import syrovyi.vitalii.echovox.file.repository.FileMetadata;
 import syrovyi.vitalii.echovox.file.repository.FileSystemRepository;
+import syrovyi.vitalii.echovox.file.repository.StoredContent;
+import syrovyi.vitalii.echovox.file.repository.ContentHashes;
 import syrovyi.vitalii.echovox.file.service.FileProcessingService;
 import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
-import tools.jackson.dataformat.xml.XmlMapper;
+import syrovyi.vitalii.echovox.file.service.XmlConversionService;
 
 import java.io.IOException;
-import java.nio.file.Path;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FileProcessingServiceImpl implements FileProcessingService {
+    private static final int STREAM_FLUSH_INTERVAL = 64;
+    private static final String OPERATION_UPLOAD = "upload";
+    private static final String OPERATION_DELETE = "delete";
+    private static final String OPERATION_REFRESH = "refresh";
+    private static final String OPERATION_GET = "get";
+    private static final String OPERATION_SEARCH = "search";
+    private static final String OPERATION_TEXT_SEARCH = "text-search";
+    private static final String OPERATION_STREAM = "stream";
 
-    private final XmlMapper xmlMapper;
     private final ObjectMapper objectMapper;
+    private final XmlConversionService xmlConversionService;
     private final FileDataMapper fileDataMapper;
     private final FileSystemRepository fileSystemRepository;
     private final FilenameHandlerService filenameHandler;
+    private final FileIndex fileIndex;
+    private final FileStatistics fileStatistics;
+    private final TextIndex textIndex;
+    private final ContentCache contentCache;
+    private final SearchReadExecutor searchReadExecutor;
+    private final StorageCodec storageCodec;
+    private final PipelineMetrics pipelineMetrics;
+    private final FileLocks fileLocks;
+    private final ChangeFeed changeFeed;
+
+    @Value("${file.search.max-page-size:1000}")
+    private int maxPageSize;
 
     @Override
     public void uploadFile(MultipartFile file) {
@@ -52,55 +100,213 @@ public class FileProcessingServiceImpl implements FileProcessingService {
         filenameHandler.validate(filename);
         String storedName = filenameHandler.toStoredFilename(filename);
 
+        try (FileLocks.Held held = lock(storedName, OPERATION_DELETE)) {
+            if (BooleanUtils.isFalse(fileSystemRepository.exists(storedName))) {
+                throw new ClientBackendException(ErrorCode.NOT_FOUND, "File not found: " + filename);
+            }
+
+            pipelineMetrics.run(PipelineStage.WRITE, OPERATION_DELETE, () -> fileSystemRepository.delete(storedName));
+            pipelineMetrics.run(PipelineStage.INDEX, OPERATION_DELETE, () -> {
+                fileIndex.remove(filename);
+                textIndex.remove(filename);
+                fileStatistics.remove(filename);
+            });
+            changeFeed.publish(FileChangeType.DELETED, filename);
+        }
+    }
+
+    /**
+     * Runs under the file's write lock, so a change the application made itself is seen only after its
+     * indexes were updated, and then found to be current. Unchanged content is recognized by its hash
+     * and keeps its cached copy.
+     */
+    @Override
+    public void refreshFile(String filename) {
+        String storedName = filenameHandler.toStoredFilename(filename);
+
+        try (FileLocks.Held held = lock(storedName, OPERATION_REFRESH)) {
+            boolean indexed = fileIndex.contains(filename);
+            if (BooleanUtils.isFalse(fileSystemRepository.exists(storedName))) {
+                contentCache.invalidate(storedName);
+                if (indexed) {
+                    pipelineMetrics.run(PipelineStage.INDEX, OPERATION_REFRESH, () -> {
+                        fileIndex.remove(filename);
+                        textIndex.remove(filename);
+                        fileStatistics.remove(filename);
+                    });
+                    changeFeed.publish(FileChangeType.DELETED, filename);
+                }
+                return;
+            }
+
+            boolean changed = pipelineMetrics.record(PipelineStage.INDEX, OPERATION_REFRESH, () -> {
+                fileIndex.add(filename);
+                fileStatistics.put(filename, fileSystemRepository.getMetadata(storedName).size());
+                return textIndex.refresh(filename);
+            });
+            if (!indexed || changed) {
+                contentCache.invalidate(storedName);
+                changeFeed.publish(indexed ? FileChangeType.REPLACED : FileChangeType.CREATED, filename);
+            }
+        }
+    }
+
+    @Override
+    public CustomerJsonDTO getFileContent(String filename) {
+        filenameHandler.validate(filename);
+        String storedName = filenameHandler.toStoredFilename(filename);
+
         if (BooleanUtils.isFalse(fileSystemRepository.exists(storedName))) {
             throw new ClientBackendException(ErrorCode.NOT_FOUND, "File not found: " + filename);
         }
 
-        fileSystemRepository.delete(storedName);
+        return contentCache.get(storedName, name -> readContent(name, OPERATION_GET));
     }
 
+    /**
+     * Hands out the stored bytes without decoding them. Gzip-compressed files stay compressed when the
+     * client accepts it; the ETag is suffixed per encoding, since the bytes differ.
+     */
     @Override
-    public CustomerJsonDTO getFileContent(String filename) {
+    public RawContent getRawContent(String filename, boolean acceptsGzip) {
         filenameHandler.validate(filename);
         String storedName = filenameHandler.toStoredFilename(filename);
 
         if (BooleanUtils.isFalse(fileSystemRepository.exists(storedName))) {
             throw new ClientBackendException(ErrorCode.NOT_FOUND, "File not found: " + filename);
         }
+        StoredContent stored = fileSystemRepository.getStoredContent(storedName, acceptsGzip);
+        String hash = fileSystemRepository.contentHash(storedName);
+        String etag = "\"" + hash + (stored.compressed() ? "-gzip" : "") + "\"";
 
-        try {
-            byte[] bytes = fileSystemRepository.readFile(storedName);
+        return new RawContent(stored.resource(), storageCodec.contentType(), stored.compressed(), etag, stored.lastModified());
+    }
 
-            return objectMapper.readValue(bytes, CustomerJsonDTO.class);
-        } catch (IOException e) {
-            throw new ClientBackendException(ErrorCode.IO_ERROR, "Failed to read file content", e);
+    @Override
+    public String getFileETag(String filename) {
+        filenameHandler.validate(filename);
+        String storedName = filenameHandler.toStoredFilename(filename);
+
+        if (BooleanUtils.isFalse(fileSystemRepository.exists(storedName))) {
+            throw new ClientBackendException(ErrorCode.NOT_FOUND, "File not found: " + filename);
         }
+
+        return "\"" + fileSystemRepository.contentHash(storedName) + "\"";
     }
 
     @Override
-    public List<FileResponseDTO> getFilesByDate(LocalDate date) {
-        String glob = filenameHandler.generateDateGlob(date);
+    public Tagged<List<FileResponseDTO>> queryFilesTagged(FileQuery query, FileProjection projection) {
+        validateQuery(query);
+        List<String> filenames = find(query);
 
-        return searchFiles(glob, name -> filenameHandler.matchesDate(name, date));
+        return new Tagged<>(aggregateETag(filenames, null, projection),
+                () -> projectResults(OPERATION_SEARCH, filenames, projection));
     }
 
     @Override
-    public List<FileResponseDTO> getFilesByCustomer(String customerName) {
-        String glob = filenameHandler.generateCustomerGlob(customerName);
+    public Tagged<FilePageResponseDTO> getFilesPageTagged(FileQuery query, String cursor, int limit, FileProjection projection) {
+        validateQuery(query);
+        Page page = page(query, cursor, limit);
+
+        return new Tagged<>(aggregateETag(page.names(), page.nextCursor(), projection), () -> projectPage(page, projection));
+    }
+
+    @Override
+    public Tagged<List<FileResponseDTO>> searchContentTagged(String text, FileProjection projection) {
+        List<String> filenames = searchContent(text);
+
+        return new Tagged<>(aggregateETag(filenames, null, projection),
+                () -> projectResults(OPERATION_TEXT_SEARCH, filenames, projection));
+    }
+
+    @Override
+    public List<FileResponseDTO> searchContent(String text, FileProjection projection) {
+        return projectResults(OPERATION_TEXT_SEARCH, searchContent(text), projection);
+    }
 
-        return searchFiles(glob, name -> filenameHandler.matchesCustomer(name, customerName));
+    @Override
+    public List<FileResponseDTO> queryFiles(FileQuery query, FileProjection projection) {
+        validateQuery(query);
+
+        return projectResults(OPERATION_SEARCH, find(query), projection);
+    }
+
+    @Override
+    public List<FileResponseDTO> getFilesByDate(LocalDate date) {
+        return searchFiles(find(FileQuery.byDate(date)));
+    }
+
+    @Override
+    public List<FileResponseDTO> getFilesByCustomer(String customerName) {
+        return searchFiles(find(FileQuery.byCustomer(customerName)));
     }
 
     @Override
     public List<FileResponseDTO> getFilesByType(String type) {
-        String glob = filenameHandler.generateTypeGlob(type);
+        return searchFiles(find(FileQuery.byType(type)));
+    }
 
-        return searchFiles(glob, name -> filenameHandler.matchesType(name, type));
+    @Override
+    public FileStatisticsResponseDTO getStatistics(String customer, String type, LocalDate date) {
+        return mapStatisticsDTO(fileStatistics.totals(StringUtils.trimToNull(customer), StringUtils.trimToNull(type), date));
     }
 
-    private void save(MultipartFile file, boolean allowOverwrite) {
-        String originalFilename = file.getOriginalFilename();
+    @Override
+    public List<FileStatisticsResponseDTO> getStatisticsBreakdown(String customer, String type, LocalDate date) {
+        return fileStatistics.breakdown(StringUtils.trimToNull(customer), StringUtils.trimToNull(type), date).stream()
+                .map(FileProcessingServiceImpl::mapStatisticsDTO)
+                .toList();
+    }
 
+    @Override
+    public FilePageResponseDTO getFilesPage(FileQuery query, String cursor, int limit, FileProjection projection) {
+        validateQuery(query);
+
+        return projectPage(page(query, cursor, limit), projection);
+    }
+
+    private List<FileResponseDTO> projectResults(String operation, List<String> filenames, FileProjection projection) {
+        pipelineMetrics.recordResultCount(operation, filenames.size());
+
+        return project(filenames, projection);
+    }
+
+    private FilePageResponseDTO projectPage(Page page, FileProjection projection) {
+        return FilePageResponseDTO.builder()
+                .items(project(page.names(), projection))
+                .nextCursor(page.nextCursor())
+                .build();
+    }
+
+    /**
+     * Writes one JSON document per line as each match is read, so memory stays flat no matter how
+     * many files match.
+     */
+    @Override
+    public void streamFiles(FileQuery query, OutputStream out) throws IOException {
+        validateQuery(query);
+        int[] written = {0};
+
+        searchReadExecutor.forEach(fileIndex.iterate(query, null), name -> mapFileResponseDTO(name, OPERATION_STREAM), dto -> {
+            if (dto.isPresent()) {
+                out.write(pipelineMetrics.record(PipelineStage.SERIALIZE, OPERATION_STREAM,
+                        () -> objectMapper.writeValueAsBytes(dto.get())));
+                out.write('\n');
+                if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                    out.flush();
+                }
+            }
+        });
+        out.flush();
+        pipelineMetrics.recordResultCount(OPERATION_STREAM, written[0]);
+    }
+
+    /**
+     * Timed as nested stages: {@code write} spans the whole save, {@code convert} the XML-to-codec pass
+     * streamed inside it, so the difference is the storage overhead (temp file, hashing, rename).
+     */
+    @Override
+    public void storeFile(String originalFilename, InputStream xml, boolean allowOverwrite) {
         if (Objects.isNull(originalFilename) || originalFilename.isEmpty()) {
             throw new ClientBackendException(ErrorCode.VALIDATION_ERROR, "Filename cannot be empty");
         }
@@ -108,29 +314,176 @@ public class FileProcessingServiceImpl implements FileProcessingService {
 
         String storedName = filenameHandler.toStoredFilename(originalFilename);
 
-        if (BooleanUtils.isFalse(allowOverwrite) && fileSystemRepository.exists(storedName)) {
-            throw new ClientBackendException(ErrorCode.ALREADY_EXISTS,
-                    "File " + storedName + " already exists");
+        try (FileLocks.Held held = lock(storedName, OPERATION_UPLOAD)) {
+            boolean existed = fileSystemRepository.exists(storedName);
+            if (BooleanUtils.isFalse(allowOverwrite) && existed) {
+                throw new ClientBackendException(ErrorCode.ALREADY_EXISTS,
+                        "File " + storedName + " already exists");
+            }
+            write(originalFilename, storedName, xml);
+            changeFeed.publish(existed ? FileChangeType.REPLACED : FileChangeType.CREATED, originalFilename);
         }
+    }
 
-        try {
-            CustomerXmlDTO xmlDto = xmlMapper.readValue(file.getInputStream(), CustomerXmlDTO.class);
-            CustomerJsonDTO jsonDto = fileDataMapper.toJsonDto(xmlDto);
+    /**
+     * Takes the write lock of a stored file. It is held until the indexes are updated and the change is
+     * published, so concurrent writes to one name reach the file, the indexes and the change feed in the
+     * same order.
+     */
+    private FileLocks.Held lock(String storedName, String operation) {
+        return pipelineMetrics.record(PipelineStage.LOCK, operation, () -> fileLocks.lock(storedName));
+    }
+
+    private void write(String originalFilename, String storedName, InputStream xml) {
+        DocumentTerms terms = textIndex.newDocument();
+        CountingInputStream in = new CountingInputStream(xml);
+        long[] encodedBytes = {0};
+        pipelineMetrics.run(PipelineStage.WRITE, OPERATION_UPLOAD, () -> fileSystemRepository.save(storedName, out -> {
+            CountingOutputStream counted = new CountingOutputStream(out);
+            pipelineMetrics.run(PipelineStage.CONVERT, OPERATION_UPLOAD,
+                    () -> xmlConversionService.convert(in, counted, terms::indexing));
+            encodedBytes[0] = counted.getCount();
+        }));
+        pipelineMetrics.recordPayloadSize("xml", in.getCount());
+        pipelineMetrics.recordPayloadSize("encoded", encodedBytes[0]);
+
+        pipelineMetrics.run(PipelineStage.INDEX, OPERATION_UPLOAD, () -> {
+            fileIndex.add(originalFilename);
+            textIndex.update(originalFilename, terms, fileSystemRepository.contentHash(storedName));
+            fileStatistics.put(originalFilename, fileSystemRepository.getMetadata(storedName).size());
+        });
+    }
 
-            byte[] jsonBytes = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(jsonDto);
-            fileSystemRepository.save(storedName, jsonBytes);
+    private void save(MultipartFile file, boolean allowOverwrite) {
+        try (InputStream xml = file.getInputStream()) {
+            storeFile(file.getOriginalFilename(), xml, allowOverwrite);
         } catch (IOException e) {
             throw new ClientBackendException(ErrorCode.INVALID_FORMAT, "Error parsing XML or writing file", e);
         }
     }
 
-    private List<FileResponseDTO> searchFiles(String globPattern, Predicate<String> strictFilter) {
-        try (Stream<Path> stream = fileSystemRepository.findFiles(globPattern)) {
-            return stream
-                    .map(path -> path.getFileName().toString())
-                    .map(filenameHandler::toOriginalFilename)
-                    .filter(strictFilter)
-                    .map(this::mapFileResponseDTO)
+    /**
+     * Answered from the text index alone. Names the index has not caught up on removing yet are dropped
+     * by checking them against the file index.
+     */
+    private List<String> searchContent(String text) {
+        if (Objects.isNull(text) || text.isBlank()) {
+            throw new ClientBackendException(ErrorCode.VALIDATION_ERROR, "Parameter 'q' cannot be empty");
+        }
+
+        return pipelineMetrics.record(PipelineStage.SEARCH, OPERATION_TEXT_SEARCH, () -> textIndex.search(text).stream()
+                .filter(fileIndex::contains)
+                .toList());
+    }
+
+    private Page page(FileQuery query, String cursor, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new ClientBackendException(ErrorCode.VALIDATION_ERROR,
+                    "Parameter 'limit' must be between 1 and " + maxPageSize);
+        }
+        String after = decodeCursor(cursor);
+
+        return pipelineMetrics.record(PipelineStage.SEARCH, OPERATION_SEARCH, () -> {
+            Iterator<String> names = fileIndex.iterate(query, after);
+            List<String> page = new ArrayList<>(limit);
+
+            while (page.size() < limit && names.hasNext()) {
+                page.add(names.next());
+            }
+            String nextCursor = names.hasNext() ? encodeCursor(page.get(page.size() - 1)) : null;
+
+            return new Page(page, nextCursor);
+        });
+    }
+
+    /**
+     * Hashes the matched names together with their content hashes, so the tag changes when a file is
+     * added, removed or rewritten. Files that cannot be read are skipped, as they are in the results.
+     * Name-only results hash the names alone, metadata results the names with size and modification time.
+     */
+    private String aggregateETag(List<String> filenames, String nextCursor, FileProjection projection) {
+        MessageDigest digest = ContentHashes.newDigest();
+        for (String filename : filenames) {
+            if (projection == FileProjection.NAME) {
+                digest.update((filename + '\n').getBytes(StandardCharsets.UTF_8));
+                continue;
+            }
+            try {
+                String storedName = filenameHandler.toStoredFilename(filename);
+                String version = projection == FileProjection.METADATA
+                        ? metadataVersion(fileIndex.metadata(filename))
+                        : fileSystemRepository.contentHash(storedName);
+                digest.update((filename + '\0' + version + '\n').getBytes(StandardCharsets.UTF_8));
+            } catch (ClientBackendException e) {
+                log.debug("Skipping {} in search ETag: {}", filename, e.getMessage());
+            }
+        }
+        if (Objects.nonNull(nextCursor)) {
+            digest.update(nextCursor.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return "\"" + ContentHashes.toHex(digest) + "\"";
+    }
+
+    private static String metadataVersion(FileMetadata metadata) {
+        return metadata.size() + ":" + metadata.lastModified();
+    }
+
+    private List<FileResponseDTO> project(List<String> filenames, FileProjection projection) {
+        return switch (projection) {
+            case NAME -> filenames.stream()
+                    .map(filename -> fileDataMapper.mapToFileResponseDTO(filename, null))
+                    .toList();
+            case METADATA -> filenames.stream()
+                    .map(this::mapFileMetadataDTO)
+                    .flatMap(Optional::stream)
+                    .toList();
+            case CONTENT -> searchFiles(filenames);
+        };
+    }
+
+    /**
+     * Served from the index, which stats each file at most once; the file itself is never opened. A file
+     * deleted between the lookup and the stat is left out, as unreadable files are from content results.
+     */
+    private Optional<FileResponseDTO> mapFileMetadataDTO(String xmlFilename) {
+        try {
+            FileMetadata metadata = fileIndex.metadata(xmlFilename);
+
+            return Optional.of(fileDataMapper.mapToFileMetadataDTO(xmlFilename, metadata));
+        } catch (ClientBackendException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static FileStatisticsResponseDTO mapStatisticsDTO(FileTotals totals) {
+        return FileStatisticsResponseDTO.builder()
+                .customer(totals.customer())
+                .type(totals.type())
+                .date(totals.date())
+                .files(totals.files())
+                .bytes(totals.bytes())
+                .build();
+    }
+
+    private static void validateQuery(FileQuery query) {
+        if (query.isEmpty()) {
+            throw new ClientBackendException(ErrorCode.VALIDATION_ERROR,
+                    "At least one of 'customer', 'type', 'from' or 'to' is required");
+        }
+        if (Objects.nonNull(query.from()) && Objects.nonNull(query.to()) && query.from().isAfter(query.to())) {
+            throw new ClientBackendException(ErrorCode.VALIDATION_ERROR,
+                    "Parameter 'from' must not be after 'to'");
+        }
+    }
+
+    private List<String> find(FileQuery query) {
+        return pipelineMetrics.record(PipelineStage.SEARCH, OPERATION_SEARCH, () -> fileIndex.find(query));
+    }
+
+    private List<FileResponseDTO> searchFiles(List<String> filenames) {
+        try {
+            return searchReadExecutor.map(filenames, name -> mapFileResponseDTO(name, OPERATION_SEARCH)).stream()
                     .filter(Optional::isPresent)
                     .map(Optional::get)
                     .toList();
@@ -139,15 +492,51 @@ public class FileProcessingServiceImpl implements FileProcessingService {
         }
     }
 
-    private Optional<FileResponseDTO> mapFileResponseDTO(String xmlFilename) {
+    private Optional<FileResponseDTO> mapFileResponseDTO(String xmlFilename, String operation) {
         try {
-            String jsonFilename = filenameHandler.toStoredFilename(xmlFilename);
-            byte[] bytes = fileSystemRepository.readFile(jsonFilename);
-            CustomerJsonDTO content = objectMapper.readValue(bytes, CustomerJsonDTO.class);
+            String storedName = filenameHandler.toStoredFilename(xmlFilename);
+            CustomerJsonDTO content = contentCache.get(storedName, name -> readContent(name, operation));
 
-            return Optional.of(fileDataMapper.mapToFileResponseDTO(xmlFilename, content));
+            return Optional.of(pipelineMetrics.record(PipelineStage.MAP, operation,
+                    () -> fileDataMapper.mapToFileResponseDTO(xmlFilename, content)));
+        } catch (ClientBackendException e) {
+            if (e.getErrorCode() == ErrorCode.NOT_FOUND || e.getCause() instanceof NoSuchFileException) {
+                log.debug("Skipping {}: deleted while listing", xmlFilename);
+            } else {
+                log.warn("Skipping {}: could not read stored content", xmlFilename, e);
+            }
+            return Optional.empty();
         } catch (Exception e) {
+            log.warn("Skipping {}: could not read stored content", xmlFilename, e);
             return Optional.empty();
         }
     }
-}
\ No newline at end of file
+
+    private CustomerJsonDTO readContent(String storedName, String operation) {
+        return pipelineMetrics.record(PipelineStage.READ, operation, () -> {
+            try (InputStream content = fileSystemRepository.openStream(storedName)) {
+                return storageCodec.read(content);
+            } catch (IOException e) {
+                throw new ClientBackendException(ErrorCode.IO_ERROR, "Failed to read file content", e);
+            }
+        });
+    }
+
+    private record Page(List<String> names, String nextCursor) {
+    }
+
+    private static String encodeCursor(String filename) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(filename.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (Objects.isNull(cursor) || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ClientBackendException(ErrorCode.VALIDATION_ERROR, "Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -4,33 +4,34 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import syrovyi.vitalii.echovox.common.exception.enums.ErrorCode;
 import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.codec.StorageCodec;
+import syrovyi.vitalii.echovox.file.model.FileQuery;
+import syrovyi.vitalii.echovox.file.model.FilenameParts;
 import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
 
 import java.time.LocalDate;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class FilenameHandlerServiceImpl implements FilenameHandlerService {
     private static final String EXT_XML = ".xml";
-    private static final String EXT_JSON = ".json";
     private static final String SEPARATOR = "_";
     private static final String WILDCARD = "*";
+    private static final char EXTENSION_SEPARATOR = '.';
 
-    private static final String G_CUSTOMER = "customer";
-    private static final String G_TYPE = "type";
-    private static final String G_DATE = "date";
+    /**
+     * Search filters test every candidate name, so each thread reuses one parser instead of
+     * allocating a matcher and group substrings per name.
+     */
+    private static final ThreadLocal<FilenameParser> PARSER = ThreadLocal.withInitial(FilenameParser::new);
 
-    private static final Pattern FILENAME_PATTERN = Pattern.compile(
-            String.format("^(?<%s>[a-zA-Z0-9]+)_(?<%s>[a-zA-Z0-9]+)_(?<%s>\\d{4}-\\d{2}-\\d{2})\\.xml$",
-                    G_CUSTOMER, G_TYPE, G_DATE)
-    );
+    private final StorageCodec storageCodec;
 
     @Override
     public void validate(String filename) {
-        if (Objects.isNull(filename)|| !FILENAME_PATTERN.matcher(filename).matches()) {
+        if (Objects.isNull(filename) || !PARSER.get().parse(filename)) {
             throw new ClientBackendException(ErrorCode.VALIDATION_ERROR,
                     "Invalid filename format. Expected: customer_type_date.xml. Got: " + filename);
         }
@@ -38,47 +39,96 @@ public class FilenameHandlerServiceImpl implements FilenameHandlerService {
 
     @Override
     public String toStoredFilename(String originalXmlName) {
-        return originalXmlName.replace(EXT_XML, EXT_JSON);
+        return stripExtension(originalXmlName) + storageCodec.extension();
     }
 
+    /**
+     * Accepts any codec's extension, so names stored under a previously configured codec still map back.
+     */
     @Override
-    public String toOriginalFilename(String storedJsonName) {
-        return storedJsonName.replace(EXT_JSON, EXT_XML);
+    public String toOriginalFilename(String storedName) {
+        return stripExtension(storedName) + EXT_XML;
+    }
+
+    @Override
+    public Optional<FilenameParts> parse(String filename) {
+        if (Objects.isNull(filename)) {
+            return Optional.empty();
+        }
+        FilenameParser parser = PARSER.get();
+
+        if (!parser.parse(filename)) {
+            return Optional.empty();
+        }
+        LocalDate date = parser.epochDay() == FilenameParser.NO_DATE ? null : LocalDate.ofEpochDay(parser.epochDay());
+
+        return Optional.of(new FilenameParts(parser.customer(), parser.type(), parser.rawDate(), date));
     }
 
     @Override
     public boolean matchesCustomer(String filename, String customer) {
-        Matcher m = FILENAME_PATTERN.matcher(filename);
+        FilenameParser parser = PARSER.get();
 
-        return m.matches() && m.group(G_CUSTOMER).equals(customer);
+        return parser.parse(filename) && parser.customerEquals(customer);
     }
 
     @Override
     public boolean matchesType(String filename, String type) {
-        Matcher m = FILENAME_PATTERN.matcher(filename);
+        FilenameParser parser = PARSER.get();
 
-        return m.matches() && m.group(G_TYPE).equals(type);
+        return parser.parse(filename) && parser.typeEquals(type);
     }
 
     @Override
     public boolean matchesDate(String filename, LocalDate date) {
-        Matcher m = FILENAME_PATTERN.matcher(filename);
+        FilenameParser parser = PARSER.get();
+
+        return parser.parse(filename) && parser.epochDay() != FilenameParser.NO_DATE
+                && parser.epochDay() == date.toEpochDay();
+    }
+
+    @Override
+    public boolean matches(String filename, FileQuery query) {
+        FilenameParser parser = PARSER.get();
+
+        if (!parser.parse(filename)
+                || (Objects.nonNull(query.customer()) && !parser.customerEquals(query.customer()))
+                || (Objects.nonNull(query.type()) && !parser.typeEquals(query.type()))) {
+            return false;
+        }
+        if (!query.hasDateRange()) {
+            return true;
+        }
+        int epochDay = parser.epochDay();
+
+        return epochDay != FilenameParser.NO_DATE
+                && (Objects.isNull(query.from()) || epochDay >= query.from().toEpochDay())
+                && (Objects.isNull(query.to()) || epochDay <= query.to().toEpochDay());
+    }
 
-        return m.matches() && m.group(G_DATE).equals(date.toString());
+    @Override
+    public String generateAllGlob() {
+        return WILDCARD + storageCodec.extension();
     }
 
     @Override
     public String generateDateGlob(LocalDate date) {
-        return WILDCARD + SEPARATOR + date.toString() + EXT_JSON;
+        return WILDCARD + SEPARATOR + date.toString() + storageCodec.extension();
     }
 
     @Override
     public String generateCustomerGlob(String customerName) {
-        return customerName + SEPARATOR + WILDCARD + EXT_JSON;
+        return customerName + SEPARATOR + WILDCARD + storageCodec.extension();
     }
 
     @Override
     public String generateTypeGlob(String type) {
-        return WILDCARD + SEPARATOR + type + SEPARATOR + WILDCARD + EXT_JSON;
+        return WILDCARD + SEPARATOR + type + SEPARATOR + WILDCARD + storageCodec.extension();
+    }
+
+    private static String stripExtension(String filename) {
+        int extension = filename.lastIndexOf(EXTENSION_SEPARATOR);
+
+        return extension < 0 ? filename : filename.substring(0, extension);
     }
 }
@@ -0,0 +1,165 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+/**
+ * Single-pass parser for {@code customer_type_date.xml} names, accepting exactly what
+ * {@code ^([a-zA-Z0-9]+)_([a-zA-Z0-9]+)_(\d{4}-\d{2}-\d{2})\.xml$} matches.
+ * <p>
+ * An instance is a reusable view over the last parsed name: it records component offsets and the
+ * date as an epoch day instead of creating substrings, so matching a candidate allocates nothing.
+ * Instances are not thread-safe.
+ */
+public final class FilenameParser {
+    /**
+     * Epoch day of a date segment that is well-formed but not a real calendar day (e.g. {@code 2024-13-45}).
+     */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final String EXTENSION = ".xml";
+    private static final int DATE_LENGTH = 10;
+    private static final int DAYS_0000_TO_1970 = 719_528;
+
+    private String source;
+    private int typeStart;
+    private int dateStart;
+    private int epochDay;
+
+    /**
+     * Parses {@code name} into this view.
+     *
+     * @return whether the name is valid; the accessors are only meaningful after {@code true}
+     */
+    public boolean parse(String name) {
+        source = null;
+        int length = name.length();
+
+        int customerEnd = skipAlphanumeric(name, 0, length);
+        if (customerEnd == 0 || customerEnd == length || name.charAt(customerEnd) != '_') {
+            return false;
+        }
+        int typeEnd = skipAlphanumeric(name, customerEnd + 1, length);
+        if (typeEnd == customerEnd + 1 || typeEnd == length || name.charAt(typeEnd) != '_') {
+            return false;
+        }
+        int date = typeEnd + 1;
+        if (length - date != DATE_LENGTH + EXTENSION.length() || !name.startsWith(EXTENSION, date + DATE_LENGTH)) {
+            return false;
+        }
+        int year = digits(name, date, 4);
+        int month = name.charAt(date + 4) == '-' ? digits(name, date + 5, 2) : -1;
+        int day = name.charAt(date + 7) == '-' ? digits(name, date + 8, 2) : -1;
+        if (year < 0 || month < 0 || day < 0) {
+            return false;
+        }
+
+        source = name;
+        typeStart = customerEnd + 1;
+        dateStart = date;
+        epochDay = toEpochDay(year, month, day);
+        return true;
+    }
+
+    public int customerLength() {
+        return typeStart - 1;
+    }
+
+    public int typeStart() {
+        return typeStart;
+    }
+
+    public int typeLength() {
+        return dateStart - 1 - typeStart;
+    }
+
+    public int dateStart() {
+        return dateStart;
+    }
+
+    /**
+     * @return days since 1970-01-01, or {@link #NO_DATE} for a date that does not exist
+     */
+    public int epochDay() {
+        return epochDay;
+    }
+
+    public boolean customerEquals(String customer) {
+        return regionEquals(0, customerLength(), customer);
+    }
+
+    public boolean typeEquals(String type) {
+        return regionEquals(typeStart, typeLength(), type);
+    }
+
+    public String customer() {
+        return source.substring(0, customerLength());
+    }
+
+    public String type() {
+        return source.substring(typeStart, typeStart + typeLength());
+    }
+
+    public String rawDate() {
+        return source.substring(dateStart, dateStart + DATE_LENGTH);
+    }
+
+    private boolean regionEquals(int start, int length, String value) {
+        return value != null && value.length() == length && source.regionMatches(start, value, 0, length);
+    }
+
+    private static int skipAlphanumeric(String name, int from, int length) {
+        int i = from;
+        while (i < length && isAlphanumeric(name.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * @return the decimal value of {@code count} ASCII digits, or -1 if any character is not one
+     */
+    private static int digits(String name, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Same arithmetic as {@link java.time.LocalDate#toEpochDay()}, restricted to years 0000-9999.
+     */
+    private static int toEpochDay(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return NO_DATE;
+        }
+        int total = 365 * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+}
@@ -0,0 +1,97 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Fans per-file reads of a search out to virtual threads while keeping results in input order.
+ * At most {@code file.search.read-concurrency} reads are in flight at once: a sliding window of
+ * futures is refilled as the oldest one is consumed, so memory stays bounded for lazy inputs too.
+ */
+@Slf4j
+@Component
+public class SearchReadExecutor implements DisposableBean {
+    private final boolean parallel;
+    private final int concurrency;
+    private final ExecutorService executor;
+
+    public SearchReadExecutor(@Value("${file.search.parallel-reads:true}") boolean parallel,
+                              @Value("${file.search.read-concurrency:16}") int concurrency) {
+        this.parallel = parallel && concurrency > 1;
+        this.concurrency = Math.max(1, concurrency);
+        this.executor = this.parallel
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("search-read-", 0).factory())
+                : null;
+        log.info("Search reads run {}", this.parallel ? "in parallel, up to " + this.concurrency + " at a time" : "sequentially");
+    }
+
+    public <T, R> List<R> map(List<T> items, Function<T, R> reader) {
+        List<R> results = new ArrayList<>(items.size());
+        try {
+            forEach(items.iterator(), reader, results::add);
+        } catch (IOException e) {
+            throw new IllegalStateException("Collecting into a list cannot fail", e);
+        }
+
+        return results;
+    }
+
+    public <T, R> void forEach(Iterator<T> items, Function<T, R> reader, ResultSink<R> sink) throws IOException {
+        if (!parallel) {
+            while (items.hasNext()) {
+                sink.accept(reader.apply(items.next()));
+            }
+            return;
+        }
+
+        Deque<CompletableFuture<R>> window = new ArrayDeque<>(concurrency);
+        try {
+            while (items.hasNext() || !window.isEmpty()) {
+                while (window.size() < concurrency && items.hasNext()) {
+                    T item = items.next();
+                    window.addLast(CompletableFuture.supplyAsync(() -> reader.apply(item), executor));
+                }
+                sink.accept(join(window.removeFirst()));
+            }
+        } finally {
+            window.forEach(future -> future.cancel(false));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ResultSink<R> {
+        void accept(R result) throws IOException;
+    }
+}
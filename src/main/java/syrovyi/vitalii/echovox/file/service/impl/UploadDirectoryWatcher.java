@@ -0,0 +1,302 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import syrovyi.vitalii.echovox.file.index.FileIndex;
+import syrovyi.vitalii.echovox.file.metrics.PipelineMetrics;
+import syrovyi.vitalii.echovox.file.metrics.PipelineStage;
+import syrovyi.vitalii.echovox.file.repository.FileSystemRepository;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the indexes, the content cache and the change feed coherent with files that are added, replaced
+ * or removed in {@code file.upload-dir} without going through the application, e.g. restored backups.
+ * Only applies to the {@code files} storage backend.
+ * <p>
+ * Events are collected until none arrived for {@code file.watch.debounce-ms}, or at most
+ * {@code file.watch.max-delay-ms} after the first one, and each affected name is then refreshed once
+ * through {@link FileProcessingService#refreshFile}. Changes the application made itself are recognized
+ * there as already applied. The watch service is not recursive, so every non-hidden directory is
+ * registered, including ones created later; files that landed in a new directory before it was
+ * registered are picked up by scanning it.
+ * <p>
+ * When the OS drops events ({@code OVERFLOW}) or a watched directory disappears, the next batch is a
+ * reconciling scan of all stored and indexed names instead. If the upload directory cannot be watched at
+ * all, that scan runs every {@code file.watch.reconcile-interval-seconds}.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${file.watch.enabled:true} and '${file.storage.backend:files}' == 'files'")
+public class UploadDirectoryWatcher {
+    private static final String HIDDEN_PREFIX = ".";
+    private static final String OPERATION_RECONCILE = "reconcile";
+    private static final long IDLE_POLL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final FileProcessingService fileProcessingService;
+    private final FilenameHandlerService filenameHandler;
+    private final FileSystemRepository fileSystemRepository;
+    private final FileIndex fileIndex;
+    private final PipelineMetrics pipelineMetrics;
+    private final Path rootLocation;
+    private final long debounceNanos;
+    private final long maxDelayNanos;
+    private final long reconcileIntervalMs;
+
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private PathMatcher storedNames;
+    private WatchService watchService;
+    private Thread watcher;
+    private volatile boolean closed;
+
+    public UploadDirectoryWatcher(FileProcessingService fileProcessingService,
+                                  FilenameHandlerService filenameHandler,
+                                  FileSystemRepository fileSystemRepository,
+                                  FileIndex fileIndex,
+                                  PipelineMetrics pipelineMetrics,
+                                  @Value("${file.upload-dir}") Path rootLocation,
+                                  @Value("${file.watch.debounce-ms:250}") long debounceMs,
+                                  @Value("${file.watch.max-delay-ms:2000}") long maxDelayMs,
+                                  @Value("${file.watch.reconcile-interval-seconds:60}") long reconcileIntervalSeconds) {
+        this.fileProcessingService = fileProcessingService;
+        this.filenameHandler = filenameHandler;
+        this.fileSystemRepository = fileSystemRepository;
+        this.fileIndex = fileIndex;
+        this.pipelineMetrics = pipelineMetrics;
+        this.rootLocation = rootLocation;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMs);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(maxDelayMs, debounceMs));
+        this.reconcileIntervalMs = TimeUnit.SECONDS.toMillis(reconcileIntervalSeconds);
+    }
+
+    @PostConstruct
+    public void start() {
+        storedNames = FileSystems.getDefault().getPathMatcher("glob:" + filenameHandler.generateAllGlob());
+        try {
+            watchService = rootLocation.getFileSystem().newWatchService();
+            if (!register(rootLocation, null)) {
+                throw new IOException("Could not register every directory under " + rootLocation);
+            }
+            watcher = Thread.ofPlatform().name("upload-dir-watcher").daemon().start(this::watch);
+            log.info("Watching {} for external changes ({} directories)", rootLocation.toAbsolutePath(), watchedDirectories.size());
+        } catch (IOException | UnsupportedOperationException e) {
+            closeWatchService();
+            watchService = null;
+            log.warn("Cannot watch {} ({}); reconciling with storage every {} s instead",
+                    rootLocation, e.getMessage(), TimeUnit.MILLISECONDS.toSeconds(reconcileIntervalMs));
+            watcher = Thread.ofPlatform().name("upload-dir-reconcile").daemon().start(this::reconcilePeriodically);
+        }
+    }
+
+    /**
+     * Closing the watch service wakes the watcher; the fallback scan is only ever interrupted while it sleeps.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void close() throws InterruptedException {
+        closed = true;
+        if (Objects.nonNull(watchService)) {
+            closeWatchService();
+        } else if (Objects.nonNull(watcher)) {
+            watcher.interrupt();
+        }
+        if (Objects.nonNull(watcher)) {
+            watcher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * Deadlines are measured with {@link System#nanoTime()}, so a wall-clock adjustment can neither
+     * hold a batch back nor flush it early.
+     */
+    private void watch() {
+        Set<String> pending = new HashSet<>();
+        boolean reconcile = false;
+        long firstEventAt = 0;
+        long lastEventAt = 0;
+        try {
+            while (!closed) {
+                boolean batching = reconcile || !pending.isEmpty();
+                long now = System.nanoTime();
+                long wait = batching
+                        ? Math.min(lastEventAt + debounceNanos - now, firstEventAt + maxDelayNanos - now)
+                        : IDLE_POLL_NANOS;
+                WatchKey key = wait > 0 ? watchService.poll(wait, TimeUnit.NANOSECONDS) : null;
+                if (Objects.nonNull(key)) {
+                    reconcile |= collect(key, pending);
+                    lastEventAt = System.nanoTime();
+                    if (!batching) {
+                        firstEventAt = lastEventAt;
+                    }
+                    continue;
+                }
+                if (batching) {
+                    if (reconcile) {
+                        reconcile();
+                    } else {
+                        pending.forEach(this::refresh);
+                        log.debug("Applied {} external changes", pending.size());
+                    }
+                    pending.clear();
+                    reconcile = false;
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            if (!closed) {
+                log.error("Upload directory watcher stopped", e);
+            }
+        }
+    }
+
+    /**
+     * Adds the names touched by the key's events to {@code pending}.
+     *
+     * @return whether events were lost and storage has to be reconciled as a whole
+     */
+    private boolean collect(WatchKey key, Set<String> pending) {
+        Path directory = watchedDirectories.get(key);
+        boolean lost = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || Objects.isNull(directory)) {
+                lost = true;
+                continue;
+            }
+            Path child = directory.resolve((Path) event.context());
+            String name = child.getFileName().toString();
+            if (name.startsWith(HIDDEN_PREFIX)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                lost |= !register(child, pending);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && watchedDirectories.containsValue(child)) {
+                lost = true;
+            } else if (storedNames.matches(child.getFileName())) {
+                pending.add(filenameHandler.toOriginalFilename(name));
+            }
+        }
+        if (!key.reset()) {
+            // the directory is gone; its parent's delete event may arrive after it is no longer known
+            watchedDirectories.remove(key);
+            lost = true;
+        }
+        if (lost) {
+            log.info("Filesystem events were lost under {}; reconciling with storage", directory);
+        }
+        return lost;
+    }
+
+    /**
+     * Registers {@code start} and the non-hidden directories below it. Files found on the way are added
+     * to {@code found} when given.
+     *
+     * @return {@code false} if some directory could not be registered
+     */
+    private boolean register(Path start, Set<String> found) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (!dir.equals(start) && dir.getFileName().toString().startsWith(HIDDEN_PREFIX)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                    watchedDirectories.put(key, dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (Objects.nonNull(found) && attrs.isRegularFile() && storedNames.matches(file.getFileName())) {
+                        found.add(filenameHandler.toOriginalFilename(file.getFileName().toString()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not watch {}: {}", start, e.getMessage());
+            return false;
+        }
+    }
+
+    private void reconcilePeriodically() {
+        try {
+            while (!closed) {
+                Thread.sleep(reconcileIntervalMs);
+                reconcile();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Refreshes every name that is stored or indexed, which catches any change whose event was lost.
+     */
+    private void reconcile() {
+        pipelineMetrics.run(PipelineStage.SCAN, OPERATION_RECONCILE, () -> {
+            Set<String> names = new HashSet<>(fileIndex.names());
+            try (Stream<Path> files = fileSystemRepository.findFiles(filenameHandler.generateAllGlob())) {
+                files.forEach(path -> names.add(filenameHandler.toOriginalFilename(path.getFileName().toString())));
+            } catch (RuntimeException e) {
+                log.error("Reconciling with storage failed", e);
+                return;
+            }
+            for (String name : names) {
+                if (closed) {
+                    return;
+                }
+                refresh(name);
+            }
+            log.info("Reconciled {} files with storage", names.size());
+        });
+    }
+
+    private void refresh(String filename) {
+        if (filenameHandler.parse(filename).isEmpty()) {
+            return;
+        }
+        try {
+            fileProcessingService.refreshFile(filename);
+        } catch (RuntimeException e) {
+            log.warn("Could not apply external change to {}: {}", filename, e.getMessage());
+        }
+    }
+
+    private void closeWatchService() {
+        if (Objects.nonNull(watchService)) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Could not close watch service: {}", e.getMessage());
+            }
+        }
+    }
+}
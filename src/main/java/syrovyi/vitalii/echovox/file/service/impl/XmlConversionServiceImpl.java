@@ -0,0 +1,197 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+import org.springframework.stereotype.Service;
+import syrovyi.vitalii.echovox.common.exception.enums.ErrorCode;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.codec.DocumentWriter;
+import syrovyi.vitalii.echovox.file.codec.StorageCodec;
+import syrovyi.vitalii.echovox.file.service.XmlConversionService;
+import tools.jackson.dataformat.xml.XmlMapper;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Converts an uploaded {@code CustomerXmlDTO} document into the stored {@code CustomerJsonDTO} layout
+ * token by token, encoded by the configured {@link StorageCodec}. Text of each field is piped from the
+ * StAX reader into the codec's writer in chunks, so for streaming codecs heap usage does not depend on
+ * the size of the document.
+ * <p>
+ * Field renames mirror {@link syrovyi.vitalii.echovox.file.mapper.FileDataMapper#toJsonDto}. As with
+ * the data-binding path, unknown elements are ignored and {@code xsi:nil} yields {@code null}. Every
+ * field is a single value, so a field given twice (repeated element, or attribute and element) is
+ * rejected rather than written as a duplicate key.
+ */
+@Service
+public class XmlConversionServiceImpl implements XmlConversionService {
+    private static final Map<String, String> FIELD_MAPPING = new LinkedHashMap<>();
+
+    static {
+        FIELD_MAPPING.put("id", "customerId");
+        FIELD_MAPPING.put("name", "customerName");
+        FIELD_MAPPING.put("content", "payload");
+    }
+
+    private final XMLInputFactory xmlInputFactory;
+    private final StorageCodec storageCodec;
+
+    public XmlConversionServiceImpl(XmlMapper xmlMapper, StorageCodec storageCodec) {
+        this.xmlInputFactory = xmlMapper.tokenStreamFactory().getXMLInputFactory();
+        this.storageCodec = storageCodec;
+    }
+
+    @Override
+    public void convert(InputStream xml, OutputStream out) throws IOException {
+        convert(xml, out, UnaryOperator.identity());
+    }
+
+    @Override
+    public void convert(InputStream xml, OutputStream out, UnaryOperator<DocumentWriter> decorator) throws IOException {
+        XMLStreamReader reader = null;
+
+        try (DocumentWriter writer = decorator.apply(storageCodec.openWriter(out))) {
+            reader = xmlInputFactory.createXMLStreamReader(xml);
+            reader.nextTag();
+
+            Set<String> written = new LinkedHashSet<>();
+
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String target = FIELD_MAPPING.get(reader.getAttributeLocalName(i));
+                if (Objects.nonNull(target)) {
+                    markWritten(written, target, reader.getAttributeLocalName(i));
+                    writer.writeField(target, reader.getAttributeValue(i));
+                }
+            }
+
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                String target = FIELD_MAPPING.get(reader.getLocalName());
+
+                if (Objects.isNull(target)) {
+                    skipElement(reader);
+                    continue;
+                }
+                markWritten(written, target, reader.getLocalName());
+                if (isNil(reader)) {
+                    writer.writeNull(target);
+                    skipElement(reader);
+                } else {
+                    writer.writeField(target, new ElementTextReader(reader));
+                }
+            }
+
+            for (String target : FIELD_MAPPING.values()) {
+                if (!written.contains(target)) {
+                    writer.writeNull(target);
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new ClientBackendException(ErrorCode.INVALID_FORMAT, "Error parsing XML: " + e.getMessage(), e);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private static void markWritten(Set<String> written, String target, String source) {
+        if (!written.add(target)) {
+            throw new ClientBackendException(ErrorCode.VALIDATION_ERROR, "Field '" + source + "' occurs more than once");
+        }
+    }
+
+    private static boolean isNil(XMLStreamReader reader) {
+        return "true".equals(reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "nil"));
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static void closeQuietly(XMLStreamReader reader) {
+        if (Objects.nonNull(reader)) {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+
+    /**
+     * Exposes the text content of the current element as a {@link Reader}, pulling one StAX text
+     * event at a time. Reaching the element's end tag signals end of stream.
+     */
+    private static final class ElementTextReader extends Reader {
+        private final XMLStreamReader reader;
+        private int offset;
+        private boolean inText;
+        private boolean finished;
+
+        private ElementTextReader(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            try {
+                while (!finished) {
+                    if (inText) {
+                        int copied = reader.getTextCharacters(offset, buffer, off, len);
+                        if (copied > 0) {
+                            offset += copied;
+                            return copied;
+                        }
+                        inText = false;
+                    }
+                    advance();
+                }
+                return -1;
+            } catch (XMLStreamException e) {
+                throw new ClientBackendException(ErrorCode.INVALID_FORMAT, "Error parsing XML: " + e.getMessage(), e);
+            }
+        }
+
+        private void advance() throws XMLStreamException {
+            switch (reader.next()) {
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                    inText = true;
+                    offset = 0;
+                }
+                case XMLStreamConstants.END_ELEMENT -> finished = true;
+                case XMLStreamConstants.START_ELEMENT -> throw new ClientBackendException(ErrorCode.INVALID_FORMAT,
+                        "Unexpected nested element <" + reader.getLocalName() + "> in a text field");
+                default -> {
+                    // comments and processing instructions carry no field text
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            // the underlying XML reader is owned by the converter
+        }
+    }
+}
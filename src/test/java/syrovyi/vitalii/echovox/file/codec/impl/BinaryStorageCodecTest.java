@@ -0,0 +1,38 @@
+package syrovyi.vitalii.echovox.file.codec.impl;
+
+import org.junit.jupiter.api.Test;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.codec.DocumentWriter;
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryStorageCodecTest {
+    private final BinaryStorageCodec codec = new BinaryStorageCodec(16);
+
+    @Test
+    void fieldsUpToTheBufferLimitReadBack() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (DocumentWriter writer = codec.openWriter(out)) {
+            writer.writeField("customerId", "1");
+            writer.writeField("payload", new StringReader("x".repeat(16)));
+        }
+        CustomerJsonDTO read = codec.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals("x".repeat(16), read.getPayload());
+    }
+
+    @Test
+    void fieldOverTheBufferLimitIsRejected() {
+        DocumentWriter writer = codec.openWriter(new ByteArrayOutputStream());
+
+        assertThrows(ClientBackendException.class, () -> writer.writeField("payload", new StringReader("x".repeat(17))));
+    }
+}
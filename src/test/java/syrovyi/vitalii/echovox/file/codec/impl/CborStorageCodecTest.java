@@ -0,0 +1,58 @@
+package syrovyi.vitalii.echovox.file.codec.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import syrovyi.vitalii.echovox.file.codec.DocumentWriter;
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CborStorageCodecTest {
+    private final CborStorageCodec codec = new CborStorageCodec(new ObjectMapper());
+
+    /**
+     * The emoji's surrogate pair straddles the first chunk boundary.
+     */
+    @Test
+    void streamedFieldReadsBackAcrossChunks() throws IOException {
+        String payload = "a".repeat(8191) + "😀" + "é".repeat(20_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (DocumentWriter writer = codec.openWriter(out)) {
+            writer.writeField("customerId", "42");
+            writer.writeField("customerName", new StringReader("Acme Corp"));
+            writer.writeField("payload", new StringReader(payload));
+        }
+        CustomerJsonDTO read = codec.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals("42", read.getCustomerId());
+        assertEquals("Acme Corp", read.getCustomerName());
+        assertEquals(payload, read.getPayload());
+        assertEquals(Map.of("customerId", "42", "customerName", "Acme Corp", "payload", payload),
+                new CBORMapper().readValue(out.toByteArray(), Map.class));
+    }
+
+    @Test
+    void nullAndEmptyFieldsReadBack() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (DocumentWriter writer = codec.openWriter(out)) {
+            writer.writeNull("customerId");
+            writer.writeField("customerName", (String) null);
+            writer.writeField("payload", new StringReader(""));
+        }
+        CustomerJsonDTO read = codec.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertNull(read.getCustomerId());
+        assertNull(read.getCustomerName());
+        assertEquals("", read.getPayload());
+    }
+}
@@ -0,0 +1,149 @@
+package syrovyi.vitalii.echovox.file.index.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import syrovyi.vitalii.echovox.file.cache.impl.ContentCacheImpl;
+import syrovyi.vitalii.echovox.file.codec.impl.JsonStorageCodec;
+import syrovyi.vitalii.echovox.file.metrics.PipelineMetrics;
+import syrovyi.vitalii.echovox.file.model.FileTotals;
+import syrovyi.vitalii.echovox.file.repository.impl.DiskIoLimiter;
+import syrovyi.vitalii.echovox.file.repository.impl.PayloadCompressor;
+import syrovyi.vitalii.echovox.file.repository.impl.SegmentFileSystemRepositoryImpl;
+import syrovyi.vitalii.echovox.file.repository.impl.StorageSync;
+import syrovyi.vitalii.echovox.file.service.impl.FilenameHandlerServiceImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileStatisticsImplTest {
+    private static final LocalDate JAN_1 = LocalDate.of(2024, 1, 1);
+    private static final LocalDate JAN_2 = LocalDate.of(2024, 1, 2);
+
+    @TempDir
+    Path root;
+
+    private final JsonStorageCodec storageCodec = new JsonStorageCodec(new ObjectMapper());
+    private final FilenameHandlerServiceImpl filenameHandler = new FilenameHandlerServiceImpl(storageCodec);
+    private SegmentFileSystemRepositoryImpl repository;
+    private FileStatisticsImpl statistics;
+
+    @BeforeEach
+    void open() {
+        repository = new SegmentFileSystemRepositoryImpl(new ContentCacheImpl(false, 0, new SimpleMeterRegistry()),
+                new DiskIoLimiter(0), new PayloadCompressor(false, 0, 1),
+                new StorageSync("none", 0, new SimpleMeterRegistry()), storageCodec, root, 1 << 20, 0.5);
+        repository.init();
+        statistics = new FileStatisticsImpl(repository, filenameHandler, new PipelineMetrics(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void close() {
+        repository.close();
+    }
+
+    @Test
+    void replaceSubtractsTheOldSize() {
+        statistics.put("acme_invoice_2024-01-01.xml", 100);
+        statistics.put("acme_invoice_2024-01-01.xml", 30);
+
+        assertEquals(new FileTotals(null, null, null, 1, 30), statistics.totals(null, null, null));
+        assertEquals(List.of(new FileTotals("acme", "invoice", JAN_1, 1, 30)), statistics.breakdown(null, null, null));
+    }
+
+    @Test
+    void removeDropsEmptyGroups() {
+        statistics.put("acme_invoice_2024-01-01.xml", 100);
+        statistics.put("bolt_receipt_2024-01-02.xml", 50);
+
+        statistics.remove("acme_invoice_2024-01-01.xml");
+        statistics.remove("acme_invoice_2024-01-01.xml");
+
+        assertEquals(List.of(new FileTotals("bolt", "receipt", JAN_2, 1, 50)), statistics.breakdown(null, null, null));
+        assertEquals(new FileTotals("acme", null, null, 0, 0), statistics.totals("acme", null, null));
+        assertEquals(new FileTotals(null, null, JAN_1, 0, 0), statistics.totals(null, null, JAN_1));
+        assertEquals(new FileTotals(null, null, null, 1, 50), statistics.totals(null, null, null));
+    }
+
+    /**
+     * Sizes are distinct powers of two, so the bytes of a result tell exactly which files it counted.
+     */
+    @Test
+    void totalsAndBreakdownAgreeWithEveryFilter() {
+        List<Sample> samples = List.of(
+                new Sample("acme", "invoice", JAN_1, 1),
+                new Sample("acme", "invoice", JAN_2, 2),
+                new Sample("acme", "receipt", JAN_1, 4),
+                new Sample("bolt", "invoice", JAN_1, 8),
+                new Sample("bolt", "receipt", JAN_2, 16));
+        samples.forEach(sample -> statistics.put(sample.filename(), sample.bytes()));
+
+        for (String customer : new String[]{null, "acme", "bolt", "none"}) {
+            for (String type : new String[]{null, "invoice", "receipt"}) {
+                for (LocalDate date : new LocalDate[]{null, JAN_1, JAN_2}) {
+                    List<Sample> matching = samples.stream().filter(sample -> sample.matches(customer, type, date)).toList();
+                    long bytes = matching.stream().mapToLong(Sample::bytes).sum();
+                    String filter = customer + "/" + type + "/" + date;
+
+                    assertEquals(new FileTotals(customer, type, date, matching.size(), bytes),
+                            statistics.totals(customer, type, date), filter);
+                    assertEquals(matching.stream().map(Sample::totals).toList(),
+                            statistics.breakdown(customer, type, date), filter);
+                }
+            }
+        }
+    }
+
+    @Test
+    void invalidDateIsGroupedApartFromEveryDay() {
+        statistics.put("acme_invoice_2024-01-01.xml", 1);
+        statistics.put("acme_invoice_2024-13-45.xml", 2);
+
+        assertEquals(new FileTotals("acme", "invoice", null, 2, 3), statistics.totals("acme", "invoice", null));
+        assertEquals(new FileTotals(null, null, JAN_1, 1, 1), statistics.totals(null, null, JAN_1));
+        assertEquals(List.of(new FileTotals("acme", "invoice", null, 1, 2), new FileTotals("acme", "invoice", JAN_1, 1, 1)),
+                statistics.breakdown(null, null, null));
+    }
+
+    @Test
+    void rebuildCountsWhatIsStored() {
+        statistics.put("gone_invoice_2024-01-01.xml", 100);
+        List<String> stored = new ArrayList<>();
+        for (String filename : List.of("acme_invoice_2024-01-01.xml", "bolt_invoice_2024-01-01.xml")) {
+            String storedName = filenameHandler.toStoredFilename(filename);
+            repository.save(storedName, ("{\"customerName\":\"" + filename + "\"}").getBytes(StandardCharsets.UTF_8));
+            stored.add(storedName);
+        }
+
+        statistics.rebuild();
+
+        long bytes = stored.stream().mapToLong(storedName -> repository.getMetadata(storedName).size()).sum();
+        assertEquals(new FileTotals(null, "invoice", JAN_1, 2, bytes), statistics.totals(null, "invoice", JAN_1));
+        assertEquals(new FileTotals("gone", null, null, 0, 0), statistics.totals("gone", null, null));
+    }
+
+    private record Sample(String customer, String type, LocalDate date, long bytes) {
+        String filename() {
+            return customer + "_" + type + "_" + date + ".xml";
+        }
+
+        boolean matches(String customer, String type, LocalDate date) {
+            return (Objects.isNull(customer) || customer.equals(this.customer))
+                    && (Objects.isNull(type) || type.equals(this.type))
+                    && (Objects.isNull(date) || date.equals(this.date));
+        }
+
+        FileTotals totals() {
+            return new FileTotals(customer, type, date, 1, bytes);
+        }
+    }
+}
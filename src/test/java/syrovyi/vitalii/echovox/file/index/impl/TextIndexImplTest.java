@@ -0,0 +1,212 @@
+package syrovyi.vitalii.echovox.file.index.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import syrovyi.vitalii.echovox.file.cache.impl.ContentCacheImpl;
+import syrovyi.vitalii.echovox.file.codec.impl.JsonStorageCodec;
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+import syrovyi.vitalii.echovox.file.index.DocumentTerms;
+import syrovyi.vitalii.echovox.file.index.impl.TextIndexImpl.DocRecord;
+import syrovyi.vitalii.echovox.file.repository.impl.DiskIoLimiter;
+import syrovyi.vitalii.echovox.file.repository.impl.PayloadCompressor;
+import syrovyi.vitalii.echovox.file.repository.impl.SegmentFileSystemRepositoryImpl;
+import syrovyi.vitalii.echovox.file.repository.impl.StorageSync;
+import syrovyi.vitalii.echovox.file.service.impl.FilenameHandlerServiceImpl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the index over a segment store in a temp directory. The reconcile pass started by every open
+ * waits for {@link #reconcileGate}, so what a reopen restores from the segments alone can be checked
+ * before storage is consulted.
+ */
+class TextIndexImplTest {
+    private static final String A = "a_invoice_2024-01-01.xml";
+    private static final String B = "b_invoice_2024-01-01.xml";
+    private static final String C = "c_invoice_2024-01-01.xml";
+    private static final long NO_TIMED_FLUSH = 3_600_000;
+
+    @TempDir
+    Path root;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonStorageCodec storageCodec = new JsonStorageCodec(objectMapper);
+    private final FilenameHandlerServiceImpl filenameHandler = new FilenameHandlerServiceImpl(storageCodec);
+    private final StorageSync storageSync = new StorageSync("none", 0, new SimpleMeterRegistry());
+    private final CountDownLatch reconcileGate = new CountDownLatch(1);
+    private SegmentFileSystemRepositoryImpl repository;
+    private TextIndexImpl index;
+
+    @BeforeEach
+    void openRepository() {
+        repository = new SegmentFileSystemRepositoryImpl(new ContentCacheImpl(false, 0, new SimpleMeterRegistry()),
+                new DiskIoLimiter(0), new PayloadCompressor(false, 0, 1), storageSync, storageCodec,
+                root, 1 << 20, 0.5) {
+            @Override
+            public Stream<Path> findFiles(String globPattern) {
+                try {
+                    reconcileGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findFiles(globPattern);
+            }
+        };
+        repository.init();
+    }
+
+    @AfterEach
+    void close() throws InterruptedException {
+        index.close();
+        reconcileGate.countDown();
+        repository.close();
+    }
+
+    @Test
+    void phrasesMatchWithinOneFieldOnly() {
+        index = open(1000, 8);
+        store(A, "Acme Corp", "invoice paid in full");
+
+        assertEquals(List.of(A), index.search("\"acme corp\""));
+        assertEquals(List.of(A), index.search("\"INVOICE paid\""));
+        assertEquals(List.of(A), index.search("corp invoice"));
+        assertEquals(List.of(), index.search("\"corp invoice\""));
+        assertEquals(List.of(), index.search("\"paid invoice\""));
+    }
+
+    @Test
+    void newestVersionWinsOnReopen() throws InterruptedException {
+        index = open(1000, 8);
+        store(A, "Acme", "alpha");
+        index = reopen(1000, 8);
+        store(A, "Acme", "beta");
+
+        index = reopen(1000, 8);
+
+        assertEquals(2, segmentFiles().size());
+        assertEquals(List.of(), index.search("alpha"));
+        assertEquals(List.of(A), index.search("beta"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void removalSurvivesRestart() throws InterruptedException {
+        index = open(1000, 8);
+        store(A, "Acme", "alpha");
+        store(B, "Bolt", "alpha");
+        index = reopen(1000, 8);
+        index.remove(B);
+
+        index = reopen(1000, 8);
+
+        assertEquals(List.of(A), index.search("alpha"));
+        assertEquals(List.of(), index.search("bolt"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void mergeDropsReplacedAndRemovedDocuments() throws IOException, InterruptedException {
+        index = open(1000, 1);
+        store(A, "Acme", "alpha");
+        store(B, "Bolt", "alpha");
+        index = reopen(1000, 1);
+        store(A, "Acme", "beta");
+        index.remove(B);
+
+        index = reopen(1000, 1);
+
+        List<Path> segments = segmentFiles();
+        assertEquals(1, segments.size());
+        TextSegment merged = TextSegment.open(segments.get(0), 0);
+        List<DocRecord> docs = new ArrayList<>();
+        merged.forEachDocument(docs::add);
+        assertEquals(List.of(A), docs.stream().map(DocRecord::filename).toList());
+        assertEquals(-1, merged.find("alpha".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(-1, merged.find("bolt".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(List.of(A), index.search("beta acme"));
+    }
+
+    @Test
+    void restartReindexesChangedFilesAndDropsDeletedOnes() throws InterruptedException {
+        index = open(1000, 8);
+        store(A, "Acme", "alpha");
+        store(B, "Bolt", "alpha");
+        index = reopen(1000, 8);
+        save(A, "Acme", "gamma");
+        repository.delete(filenameHandler.toStoredFilename(B));
+        save(C, "Core", "alpha");
+
+        index = reopen(1000, 8);
+        reconcileGate.countDown();
+
+        await(() -> index.search("gamma").equals(List.of(A)) && index.search("alpha").equals(List.of(C)));
+        assertEquals(2, index.size());
+    }
+
+    private TextIndexImpl open(int flushDocs, int maxSegments) {
+        TextIndexImpl opened = new TextIndexImpl(repository, filenameHandler, storageCodec, storageSync,
+                root.toString(), flushDocs, NO_TIMED_FLUSH, maxSegments, 1000);
+        opened.init();
+
+        return opened;
+    }
+
+    private TextIndexImpl reopen(int flushDocs, int maxSegments) throws InterruptedException {
+        index.close();
+        index = open(flushDocs, maxSegments);
+
+        return index;
+    }
+
+    /**
+     * Saves the document and indexes it, as an upload does.
+     */
+    private void store(String filename, String customerName, String payload) {
+        save(filename, customerName, payload);
+        DocumentTerms terms = index.newDocument();
+        terms.addField(customerName);
+        terms.addField(payload);
+        index.update(filename, terms, repository.contentHash(filenameHandler.toStoredFilename(filename)));
+    }
+
+    private void save(String filename, String customerName, String payload) {
+        CustomerJsonDTO content = new CustomerJsonDTO();
+        content.setCustomerName(customerName);
+        content.setPayload(payload);
+        try {
+            repository.save(filenameHandler.toStoredFilename(filename), objectMapper.writeValueAsBytes(content));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(root.resolve(".text-index"))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".idx")).toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not reached");
+    }
+}
@@ -0,0 +1,86 @@
+package syrovyi.vitalii.echovox.file.index.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import syrovyi.vitalii.echovox.file.index.impl.TextIndexImpl.DocRecord;
+import syrovyi.vitalii.echovox.file.index.impl.TextSegment.Posting;
+import syrovyi.vitalii.echovox.file.index.impl.TextSegment.TermPostings;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TextSegmentTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void writtenSegmentReadsBackDocumentsTermsAndPositions() throws IOException {
+        Path path = directory.resolve("segment-7.idx");
+        List<DocRecord> docs = List.of(new DocRecord(1, "a_invoice_2024-01-01.xml", "hash-a"),
+                new DocRecord(300, "b_invoice_2024-01-01.xml", "hash-b"),
+                new DocRecord(301, "a_invoice_2024-01-01.xml", null));
+        List<TermPostings> terms = List.of(
+                term("acme", new Posting(1, new int[]{0}), new Posting(300, new int[]{2, 900})),
+                term("empty"),
+                term("paid", new Posting(300, new int[]{3})));
+
+        TextSegment.write(path, docs, terms.iterator());
+        TextSegment segment = TextSegment.open(path, 7);
+
+        assertFalse(Files.exists(directory.resolve("segment-7.idx.tmp")));
+        assertEquals(7, segment.generation);
+        assertEquals(3, segment.docCount());
+        assertEquals(2, segment.termCount());
+        List<DocRecord> read = new ArrayList<>();
+        segment.forEachDocument(read::add);
+        assertEquals(docs, read);
+        assertNull(read.get(2).hash());
+        assertEquals(-1, segment.find(bytes("empty")));
+        assertEquals(-1, segment.find(bytes("zzz")));
+
+        Map<Integer, int[]> acme = postings(segment, "acme");
+        assertEquals(2, acme.size());
+        assertArrayEquals(new int[]{0}, acme.get(1));
+        assertArrayEquals(new int[]{2, 900}, acme.get(300));
+        assertArrayEquals(new int[]{3}, postings(segment, "paid").get(300));
+    }
+
+    @Test
+    void truncatedSegmentIsRejected() throws IOException {
+        Path path = directory.resolve("segment-1.idx");
+        TextSegment.write(path, List.of(new DocRecord(1, "a_invoice_2024-01-01.xml", "hash-a")),
+                List.of(term("acme", new Posting(1, new int[]{0}))).iterator());
+        byte[] content = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(content, content.length - 1));
+
+        assertThrows(IOException.class, () -> TextSegment.open(path, 1));
+    }
+
+    private static Map<Integer, int[]> postings(TextSegment segment, String term) {
+        Map<Integer, int[]> postings = new HashMap<>();
+        segment.forEachPosting(segment.find(bytes(term)), true, postings::put);
+
+        return postings;
+    }
+
+    private static TermPostings term(String term, Posting... postings) {
+        return new TermPostings(bytes(term), List.of(postings));
+    }
+
+    private static byte[] bytes(String term) {
+        return term.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,253 @@
+package syrovyi.vitalii.echovox.file.repository.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import syrovyi.vitalii.echovox.file.cache.impl.ContentCacheImpl;
+import syrovyi.vitalii.echovox.file.codec.impl.JsonStorageCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reopens segment stores after writing, damaging or compacting their segments. Every record written
+ * here takes {@value #RECORD_SIZE} bytes and segments hold three of them, so the fourth record rolls
+ * over to a new segment.
+ */
+class SegmentFileSystemRepositoryImplTest {
+    private static final String A = "a_invoice_2024-01-01.json";
+    private static final String B = "b_invoice_2024-01-01.json";
+    private static final String C = "c_invoice_2024-01-01.json";
+    private static final String D = "d_invoice_2024-01-01.json";
+    private static final int CONTENT_SIZE = 100;
+    private static final int RECORD_SIZE = 25 + 25 + CONTENT_SIZE;
+    private static final int TOMBSTONE_SIZE = 25 + 25;
+    private static final long MAX_SEGMENT_SIZE = 3 * RECORD_SIZE + TOMBSTONE_SIZE;
+
+    @TempDir
+    Path root;
+
+    private SegmentFileSystemRepositoryImpl repository;
+
+    @AfterEach
+    void close() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void reopenReplaysPutsReplacesAndDeletes() {
+        repository = open();
+        repository.save(A, content('a'));
+        repository.save(B, content('b'));
+        repository.save(A, content('A'));
+        repository.delete(B);
+
+        repository = reopen();
+
+        assertArrayEquals(content('A'), repository.readFile(A));
+        assertFalse(repository.exists(B));
+    }
+
+    @Test
+    void tornTailOfActiveSegmentIsTruncated() throws IOException {
+        repository = open();
+        repository.save(A, content('a'));
+        repository.save(B, content('b'));
+        repository.close();
+        Path segment = segment(1);
+        long intact = Files.size(segment);
+        Files.write(segment, Arrays.copyOf(Files.readAllBytes(segment), RECORD_SIZE / 2), StandardOpenOption.APPEND);
+
+        repository = reopen();
+
+        assertArrayEquals(content('a'), repository.readFile(A));
+        assertArrayEquals(content('b'), repository.readFile(B));
+        assertEquals(intact, Files.size(segment));
+        repository.save(C, content('c'));
+        assertArrayEquals(content('c'), reopen().readFile(C));
+    }
+
+    @Test
+    void corruptRecordInSealedSegmentIsSkippedWithoutLosingLaterRecords() throws IOException {
+        repository = open();
+        fillFirstSegment();
+        repository.close();
+        Path sealed = segment(1);
+        long size = Files.size(sealed);
+        flipByte(sealed, RECORD_SIZE + RECORD_SIZE / 2);
+
+        repository = reopen();
+
+        assertArrayEquals(content('a'), repository.readFile(A));
+        assertFalse(repository.exists(B));
+        assertArrayEquals(content('c'), repository.readFile(C));
+        assertArrayEquals(content('d'), repository.readFile(D));
+        assertEquals(size, Files.size(sealed));
+    }
+
+    @Test
+    void corruptLastRecordOfSealedSegmentIsNotTruncated() throws IOException {
+        repository = open();
+        fillFirstSegment();
+        repository.close();
+        Path sealed = segment(1);
+        long size = Files.size(sealed);
+        flipByte(sealed, 2 * RECORD_SIZE + RECORD_SIZE / 2);
+
+        repository = reopen();
+
+        assertTrue(repository.exists(A));
+        assertTrue(repository.exists(B));
+        assertFalse(repository.exists(C));
+        assertTrue(repository.exists(D));
+        assertEquals(size, Files.size(sealed));
+    }
+
+    @Test
+    void compactionCarriesLiveRecordsAndKeepsDeletes() throws Exception {
+        repository = open();
+        fillFirstSegment();
+        repository.save(A, content('A'));
+        repository.delete(B);
+
+        awaitDeleted(segment(1));
+        assertArrayEquals(content('c'), repository.readFile(C));
+
+        repository = reopen();
+
+        assertArrayEquals(content('A'), repository.readFile(A));
+        assertFalse(repository.exists(B));
+        assertArrayEquals(content('c'), repository.readFile(C));
+        assertArrayEquals(content('d'), repository.readFile(D));
+    }
+
+    @Test
+    void recordsStayReadableWhileTheirSegmentIsActiveSealedAndCompacted() throws Exception {
+        repository = open();
+        repository.save(A, content('a'));
+        assertArrayEquals(content('a'), repository.readFile(A));
+        repository.save(B, content('b'));
+        InputStream openedWhileActive = repository.openStream(B);
+        repository.save(C, content('c'));
+        repository.save(D, content('d'));
+        assertArrayEquals(content('c'), repository.readFile(C));
+        assertArrayEquals(content('d'), repository.readFile(D));
+
+        repository.save(A, content('A'));
+        repository.delete(B);
+        awaitDeleted(segment(1));
+
+        try (openedWhileActive) {
+            assertArrayEquals(content('b'), openedWhileActive.readAllBytes());
+        }
+        assertArrayEquals(content('A'), repository.readFile(A));
+        assertArrayEquals(content('c'), repository.readFile(C));
+    }
+
+    @Test
+    void lastModifiedIsTheDocumentsOwnWriteTime() throws Exception {
+        repository = open();
+        repository.save(C, content('c'));
+        long writtenAt = repository.getMetadata(C).lastModified();
+        Thread.sleep(20);
+        repository.save(A, content('a'));
+        repository.save(B, content('b'));
+        repository.save(D, content('d'));
+
+        assertEquals(writtenAt, repository.getMetadata(C).lastModified());
+        assertEquals(writtenAt, repository.getStoredContent(C, false).lastModified());
+        assertTrue(repository.getMetadata(D).lastModified() > writtenAt);
+
+        repository.save(A, content('A'));
+        repository.delete(B);
+        awaitDeleted(segment(1));
+        repository = reopen();
+
+        assertEquals(writtenAt, repository.getMetadata(C).lastModified());
+    }
+
+    @Test
+    void documentsOfAnotherCodecFailStartup() {
+        repository = open();
+        repository.save("a_invoice_2024-01-01.smile", content('a'));
+        repository.close();
+        repository = null;
+
+        assertThrows(IllegalStateException.class, this::open);
+    }
+
+    /**
+     * Writes a, b and c into the first segment and d into the second.
+     */
+    private void fillFirstSegment() {
+        repository.save(A, content('a'));
+        repository.save(B, content('b'));
+        repository.save(C, content('c'));
+        repository.save(D, content('d'));
+    }
+
+    private SegmentFileSystemRepositoryImpl open() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SegmentFileSystemRepositoryImpl opened = new SegmentFileSystemRepositoryImpl(
+                new ContentCacheImpl(false, 0, registry),
+                new DiskIoLimiter(0),
+                new PayloadCompressor(false, 0, 1),
+                new StorageSync("none", 0, registry),
+                new JsonStorageCodec(new ObjectMapper()),
+                root, MAX_SEGMENT_SIZE, 0.5);
+        opened.init();
+
+        return opened;
+    }
+
+    private SegmentFileSystemRepositoryImpl reopen() {
+        repository.close();
+        repository = open();
+
+        return repository;
+    }
+
+    private Path segment(int id) {
+        return root.resolve(".segments").resolve(String.format("segment-%06d.log", id));
+    }
+
+    private static byte[] content(char fill) {
+        byte[] content = new byte[CONTENT_SIZE];
+        Arrays.fill(content, (byte) fill);
+
+        return content;
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) ~value.get(0)).rewind();
+            channel.write(value, position);
+        }
+    }
+
+    private static void awaitDeleted(Path file) throws InterruptedException {
+        for (int i = 0; i < 100 && Files.exists(file); i++) {
+            Thread.sleep(50);
+        }
+        assertFalse(Files.exists(file), file + " was not compacted");
+    }
+}
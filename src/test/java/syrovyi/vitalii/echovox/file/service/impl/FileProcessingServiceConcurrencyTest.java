@@ -0,0 +1,173 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.model.FileProjection;
+import syrovyi.vitalii.echovox.file.model.FileQuery;
+import syrovyi.vitalii.echovox.file.repository.FileSystemRepository;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Races uploads, replaces and deletes of one filename against each other and checks that the stored
+ * file and the index end up agreeing, and that a held lock does not hold up writes to other names.
+ * The context is closed after the class, before its upload directory is deleted.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class FileProcessingServiceConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 200;
+
+    @Autowired
+    private FileProcessingService fileProcessingService;
+
+    @Autowired
+    private FileSystemRepository fileSystemRepository;
+
+    @Autowired
+    private FilenameHandlerService filenameHandler;
+
+    @Autowired
+    private FileLocks fileLocks;
+
+    @TempDir
+    static Path uploadDir;
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) {
+        registry.add("file.upload-dir", () -> uploadDir.toString());
+    }
+
+    @Test
+    void concurrentUploadsOfOneNewNameStoreItOnce() throws Exception {
+        String filename = "race_invoice_2024-01-01.xml";
+
+        List<Outcome> outcomes = race(THREADS, i -> () -> fileProcessingService.storeFile(filename, xml(i), false));
+
+        assertEquals(1, outcomes.stream().filter(o -> o == Outcome.OK).count());
+        assertEquals(THREADS - 1, outcomes.stream().filter(o -> o == Outcome.ALREADY_EXISTS).count());
+    }
+
+    @Test
+    void racingReplaceAndDeleteLeaveFileAndIndexInAgreement() throws Exception {
+        String filename = "flip_invoice_2024-01-01.xml";
+        String storedName = filenameHandler.toStoredFilename(filename);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            race(2, i -> i == 0
+                    ? () -> fileProcessingService.storeFile(filename, xml(i), true)
+                    : () -> fileProcessingService.deleteFile(filename));
+
+            boolean stored = fileSystemRepository.exists(storedName);
+            boolean indexed = !fileProcessingService.queryFiles(FileQuery.byCustomer("flip"), FileProjection.NAME).isEmpty();
+            assertEquals(stored, indexed, "round " + round);
+        }
+    }
+
+    /**
+     * The other names all have the held name's {@link String#hashCode()} ("Aa" and "BB" hash alike), so
+     * any lock shared by hash, such as striping, would block them.
+     */
+    @Test
+    void heldLockDoesNotBlockOtherNames() throws Exception {
+        List<String> names = new ArrayList<>(List.of(""));
+        for (int i = 0; i < 4; i++) {
+            names = names.stream().flatMap(prefix -> Stream.of(prefix + "Aa", prefix + "BB")).toList();
+        }
+        List<String> filenames = names.stream().map(customer -> customer + "_invoice_2024-01-01.xml").toList();
+        String held = filenameHandler.toStoredFilename(filenames.get(0));
+        List<String> others = filenames.subList(1, filenames.size());
+        others.forEach(filename -> assertEquals(held.hashCode(), filenameHandler.toStoredFilename(filename).hashCode()));
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try (FileLocks.Held lock = fileLocks.lock(held)) {
+            List<Future<?>> uploads = new ArrayList<>();
+            for (String filename : others) {
+                uploads.add(executor.submit(() -> fileProcessingService.storeFile(filename, xml(0), true)));
+            }
+            for (Future<?> upload : uploads) {
+                upload.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        others.forEach(filename -> assertTrue(fileSystemRepository.exists(filenameHandler.toStoredFilename(filename))));
+        assertEquals(0, fileLocks.size());
+    }
+
+    /**
+     * Starts all tasks at once and waits for them; business errors are reported as outcomes.
+     */
+    private static List<Outcome> race(int tasks, TaskFactory factory) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Outcome>> futures = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                Runnable task = factory.create(i);
+                Callable<Outcome> call = () -> {
+                    start.await();
+                    try {
+                        task.run();
+                        return Outcome.OK;
+                    } catch (ClientBackendException e) {
+                        return switch (e.getErrorCode()) {
+                            case ALREADY_EXISTS -> Outcome.ALREADY_EXISTS;
+                            case NOT_FOUND -> Outcome.NOT_FOUND;
+                            default -> throw e;
+                        };
+                    }
+                };
+                futures.add(executor.submit(call));
+            }
+            start.countDown();
+
+            List<Outcome> outcomes = new ArrayList<>(tasks);
+            for (Future<Outcome> future : futures) {
+                outcomes.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return outcomes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ByteArrayInputStream xml(int id) {
+        return new ByteArrayInputStream(("<data><id>" + id + "</id><name>Race Customer</name><content>payload " + id
+                + "</content></data>").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private enum Outcome {
+        OK,
+        ALREADY_EXISTS,
+        NOT_FOUND
+    }
+
+    @FunctionalInterface
+    private interface TaskFactory {
+        Runnable create(int index);
+    }
+}
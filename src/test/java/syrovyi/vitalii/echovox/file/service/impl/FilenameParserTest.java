@@ -0,0 +1,177 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import syrovyi.vitalii.echovox.file.codec.impl.JsonStorageCodec;
+import syrovyi.vitalii.echovox.file.model.FilenameParts;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the hand-written parser behaves exactly like the regular expression it replaced, on
+ * generated names: valid names, single- and multi-character mutations of valid names, and arbitrary
+ * strings over an alphabet biased towards the characters the grammar cares about.
+ */
+class FilenameParserTest {
+    private static final Pattern REFERENCE = Pattern.compile(
+            "^(?<customer>[a-zA-Z0-9]+)_(?<type>[a-zA-Z0-9]+)_(?<date>\\d{4}-\\d{2}-\\d{2})\\.xml$");
+    private static final String ALPHABET = "aZz09_-.xmlXML \n\t/\\*?é٣０ß";
+    private static final int SAMPLES = 100_000;
+
+    private final FilenameHandlerServiceImpl filenameHandler = new FilenameHandlerServiceImpl(new JsonStorageCodec(new ObjectMapper()));
+
+    @ParameterizedTest
+    @ValueSource(longs = {1L, 42L, 20240101L})
+    void matchesReferenceOnGeneratedNames(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            String name = switch (i % 3) {
+                case 0 -> validName(random);
+                case 1 -> mutate(validName(random), random);
+                default -> randomString(random, random.nextInt(24));
+            };
+            assertEquivalent(name, validName(random));
+        }
+    }
+
+    @Test
+    void matchesReferenceOnEdgeCases() {
+        String[] names = {
+                "", "_", "a_b_", "a_b_2024-01-01.xml", "a_b_2024-01-01.xml\n", "a_b_2024-01-01.XML",
+                "a_b_2024-01-01xml", "a__2024-01-01.xml", "_b_2024-01-01.xml", "a_b_c_2024-01-01.xml",
+                "a_b_2024-1-01.xml", "a_b_20240-01-01.xml", "a_b_2024-02-29.xml", "a_b_2023-02-29.xml",
+                "a_b_1900-02-29.xml", "a_b_2000-02-29.xml", "a_b_0000-01-01.xml", "a_b_9999-12-31.xml",
+                "a_b_2024-00-10.xml", "a_b_2024-13-01.xml", "a_b_2024-04-31.xml", "a_b_2024-01-00.xml",
+                "a_b_٢٠٢٤-01-01.xml", "a_b_2024-01-01.xml.xml", "é_b_2024-01-01.xml", "a_b_2024-01-01.xm"
+        };
+        for (String name : names) {
+            assertEquivalent(name, "a_b_2024-01-01.xml");
+        }
+    }
+
+    private void assertEquivalent(String name, String probe) {
+        Matcher m = REFERENCE.matcher(name);
+        boolean valid = m.matches();
+
+        assertEquals(valid, accepts(name), () -> "validate: " + printable(name));
+        assertEquals(reference(m, valid), filenameHandler.parse(name), () -> "parse: " + printable(name));
+
+        Matcher p = REFERENCE.matcher(probe);
+        p.matches();
+        for (String customer : new String[]{p.group("customer"), valid ? m.group("customer") : "a"}) {
+            assertEquals(valid && m.group("customer").equals(customer), filenameHandler.matchesCustomer(name, customer),
+                    () -> "matchesCustomer: " + printable(name) + " / " + customer);
+        }
+        for (String type : new String[]{p.group("type"), valid ? m.group("type") : "b"}) {
+            assertEquals(valid && m.group("type").equals(type), filenameHandler.matchesType(name, type),
+                    () -> "matchesType: " + printable(name) + " / " + type);
+        }
+        LocalDate probeDate = toLocalDate(p.group("date"));
+        LocalDate ownDate = valid ? toLocalDate(m.group("date")) : null;
+        for (LocalDate date : new LocalDate[]{probeDate, ownDate, LocalDate.of(2024, 1, 1)}) {
+            if (date != null) {
+                assertEquals(valid && m.group("date").equals(date.toString()), filenameHandler.matchesDate(name, date),
+                        () -> "matchesDate: " + printable(name) + " / " + date);
+            }
+        }
+    }
+
+    private boolean accepts(String name) {
+        try {
+            filenameHandler.validate(name);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static Optional<FilenameParts> reference(Matcher m, boolean valid) {
+        if (!valid) {
+            return Optional.empty();
+        }
+        String rawDate = m.group("date");
+
+        return Optional.of(new FilenameParts(m.group("customer"), m.group("type"), rawDate, toLocalDate(rawDate)));
+    }
+
+    private static LocalDate toLocalDate(String rawDate) {
+        try {
+            return LocalDate.parse(rawDate);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Dates are drawn from raw digits, so impossible days like 2023-02-31 are generated as well.
+     */
+    private static String validName(SplittableRandom random) {
+        return alphanumeric(random, 1 + random.nextInt(8)) + "_" + alphanumeric(random, 1 + random.nextInt(8)) + "_"
+                + digits(random, 4) + "-" + (random.nextInt(4) == 0 ? digits(random, 2) : pad(1 + random.nextInt(12)))
+                + "-" + (random.nextInt(4) == 0 ? digits(random, 2) : pad(1 + random.nextInt(31))) + ".xml";
+    }
+
+    private static String mutate(String name, SplittableRandom random) {
+        StringBuilder sb = new StringBuilder(name);
+        for (int edits = 1 + random.nextInt(2); edits > 0; edits--) {
+            int at = random.nextInt(sb.length() + 1);
+            switch (random.nextInt(3)) {
+                case 0 -> sb.insert(at, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                case 1 -> {
+                    if (at < sb.length()) {
+                        sb.deleteCharAt(at);
+                    }
+                }
+                default -> {
+                    if (at < sb.length()) {
+                        sb.setCharAt(at, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String randomString(SplittableRandom random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String alphanumeric(SplittableRandom random, int length) {
+        String chars = "abcXYZ0189";
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String digits(SplittableRandom random, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append((char) ('0' + random.nextInt(10)));
+        }
+        return sb.toString();
+    }
+
+    private static String pad(int value) {
+        return value < 10 ? "0" + value : String.valueOf(value);
+    }
+
+    private static String printable(String name) {
+        return name.replace("\n", "\\n").replace("\t", "\\t");
+    }
+}
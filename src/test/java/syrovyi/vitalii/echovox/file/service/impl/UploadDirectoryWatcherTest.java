@@ -0,0 +1,195 @@
+package syrovyi.vitalii.echovox.file.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import syrovyi.vitalii.echovox.common.exception.exception.ClientBackendException;
+import syrovyi.vitalii.echovox.file.cache.ContentCache;
+import syrovyi.vitalii.echovox.file.controller.dto.request.CustomerJsonDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.FileChangeEventDTO;
+import syrovyi.vitalii.echovox.file.controller.dto.response.enums.FileChangeType;
+import syrovyi.vitalii.echovox.file.feed.ChangeFeed;
+import syrovyi.vitalii.echovox.file.index.FileIndex;
+import syrovyi.vitalii.echovox.file.index.TextIndex;
+import syrovyi.vitalii.echovox.file.repository.layout.StorageLayout;
+import syrovyi.vitalii.echovox.file.service.FileProcessingService;
+import syrovyi.vitalii.echovox.file.service.FilenameHandlerService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Changes files under the upload directory behind the application's back and waits for the watcher to
+ * apply them. Files are staged under a hidden name, which the watcher ignores, and renamed into place,
+ * so it never sees one half-written.
+ */
+@SpringBootTest(properties = {
+        "file.storage.layout=date-customer",
+        "file.watch.debounce-ms=50",
+        "file.watch.max-delay-ms=200"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class UploadDirectoryWatcherTest {
+    private static final long SETTLE_MS = 1000;
+
+    @TempDir
+    static Path uploadDir;
+
+    @Autowired
+    private FileProcessingService fileProcessingService;
+
+    @Autowired
+    private FilenameHandlerService filenameHandler;
+
+    @Autowired
+    private StorageLayout storageLayout;
+
+    @Autowired
+    private FileIndex fileIndex;
+
+    @Autowired
+    private TextIndex textIndex;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ContentCache contentCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) {
+        registry.add("file.upload-dir", () -> uploadDir.toString());
+    }
+
+    @Test
+    void externalCreateReplaceAndDeleteReachIndexesCacheAndFeed() throws Exception {
+        String filename = "extern_invoice_2024-01-01.xml";
+        long start = changeFeed.latestSequence();
+
+        place(filename, "alpha");
+        await(() -> fileIndex.contains(filename) && textIndex.search("alpha").contains(filename));
+        assertEquals("alpha", fileProcessingService.getFileContent(filename).getPayload());
+
+        place(filename, "beta");
+        await(() -> textIndex.search("beta").contains(filename));
+        assertEquals(List.of(), textIndex.search("alpha"));
+        assertEquals("beta", fileProcessingService.getFileContent(filename).getPayload());
+
+        Files.delete(storedPath(filename));
+        await(() -> changes(start, filename).equals(
+                List.of(FileChangeType.CREATED, FileChangeType.REPLACED, FileChangeType.DELETED)));
+        assertFalse(fileIndex.contains(filename));
+        assertEquals(List.of(), textIndex.search("beta"));
+        assertThrows(ClientBackendException.class, () -> fileProcessingService.getFileContent(filename));
+    }
+
+    @Test
+    void ownWritesArePublishedOnce() throws Exception {
+        String filename = "own_invoice_2024-01-01.xml";
+        long start = changeFeed.latestSequence();
+
+        fileProcessingService.storeFile(filename, new ByteArrayInputStream(
+                "<data><id>1</id><name>Own</name><content>gamma</content></data>".getBytes(StandardCharsets.UTF_8)), false);
+        fileProcessingService.deleteFile(filename);
+        Thread.sleep(SETTLE_MS);
+
+        assertEquals(List.of(FileChangeType.CREATED, FileChangeType.DELETED), changes(start, filename));
+    }
+
+    @Test
+    void refreshingAnUnchangedFileKeepsItsCachedContent() throws Exception {
+        String filename = "cached_invoice_2024-01-01.xml";
+        fileProcessingService.storeFile(filename, new ByteArrayInputStream(
+                "<data><id>1</id><name>Cached</name><content>epsilon</content></data>".getBytes(StandardCharsets.UTF_8)), false);
+        fileProcessingService.getFileContent(filename);
+        long misses = contentCache.stats().getMissCount();
+
+        fileProcessingService.refreshFile(filename);
+        fileProcessingService.getFileContent(filename);
+
+        assertEquals(misses, contentCache.stats().getMissCount());
+    }
+
+    @Test
+    void filesInANewDirectoryAreFoundWhenItIsRegistered() throws Exception {
+        String filename = "moved_invoice_2024-02-02.xml";
+        Path staging = uploadDir.resolve(".staging");
+        Path staged = staging.resolve("2024-02-02").resolve("moved").resolve(filenameHandler.toStoredFilename(filename));
+        Files.createDirectories(staged.getParent());
+        Files.write(staged, document("delta"));
+
+        Files.move(staging.resolve("2024-02-02"), uploadDir.resolve("2024-02-02"), StandardCopyOption.ATOMIC_MOVE);
+
+        await(() -> fileIndex.contains(filename) && textIndex.search("delta").contains(filename));
+    }
+
+    @Test
+    void removedWatchedDirectoryForcesReconcile() throws Exception {
+        String ghost = "ghost_invoice_2024-03-03.xml";
+        fileIndex.add(ghost);
+        Path directory = Files.createDirectory(uploadDir.resolve("2024-03-03"));
+        Thread.sleep(SETTLE_MS);
+        assertTrue(fileIndex.contains(ghost));
+
+        Files.delete(directory);
+
+        await(() -> !fileIndex.contains(ghost));
+    }
+
+    /**
+     * Creates or replaces {@code filename} where the layout keeps it, without going through the application.
+     */
+    private void place(String filename, String payload) throws IOException {
+        Path target = storedPath(filename);
+        Files.createDirectories(target.getParent());
+        Path staged = target.resolveSibling(".staged-" + target.getFileName());
+        Files.write(staged, document(payload));
+        Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path storedPath(String filename) {
+        return storageLayout.resolve(uploadDir, filenameHandler.toStoredFilename(filename));
+    }
+
+    private byte[] document(String payload) throws IOException {
+        CustomerJsonDTO content = new CustomerJsonDTO();
+        content.setCustomerId("1");
+        content.setCustomerName("Watched");
+        content.setPayload(payload);
+
+        return objectMapper.writeValueAsBytes(content);
+    }
+
+    private List<FileChangeType> changes(long after, String filename) {
+        return changeFeed.read(after, 1000).events().stream()
+                .filter(event -> event.getFileName().equals(filename))
+                .map(FileChangeEventDTO::getType)
+                .toList();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not reached");
+    }
+}